@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.italankin.dictionary.di.components.DaggerInjector;
+import com.italankin.dictionary.di.components.Injector;
+import com.italankin.dictionary.di.modules.MainModule;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.Language;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.Translation;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.SharedPrefs;
+import com.italankin.dictionary.utils.SpellingCorrector;
+import com.italankin.dictionary.utils.TranslationIndex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Times the startup path of the application: building the component, starting warm-up, creating
+ * {@link MainPresenter} and loading cached languages, like {@code App.onCreate} and
+ * {@code MainActivity.onCreate} do. All dependencies are real, files and preferences are kept
+ * in a temporary directory, which is deleted after the test. Preferences are written before
+ * the test, so they are already in memory, unlike on a real cold start.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ColdStartTest {
+
+    /**
+     * Budget of the main thread work, in milliseconds, about three frames
+     */
+    private static final long MAIN_THREAD_BUDGET = 50;
+    /**
+     * Budget of the startup until languages are delivered, in milliseconds
+     */
+    private static final long LANGUAGES_BUDGET = 200;
+
+    private static final int LANGUAGES = 100;
+    private static final int STORED_LOOKUPS = 500;
+
+    private File mDir;
+    private StartupContext mContext;
+    private Injector mInjector;
+    private MainPresenter mPresenter;
+    private final View mView = new View();
+
+    @Before
+    public void setUp() throws IOException {
+        Context target = InstrumentationRegistry.getTargetContext();
+        mDir = File.createTempFile("cold-start", "", target.getCacheDir());
+        assertTrue(mDir.delete() && mDir.mkdirs());
+        mContext = new StartupContext(target.getApplicationContext(), mDir);
+
+        SharedPrefs prefs = new SharedPrefs(mContext);
+        List<Language> languages = new ArrayList<>(LANGUAGES + 2);
+        for (int i = 0; i < LANGUAGES; i++) {
+            languages.add(new Language("l" + i, "language " + i));
+        }
+        languages.add(new Language("en", "english"));
+        languages.add(new Language("ru", "russian"));
+        prefs.setSourceLang("en");
+        prefs.setDestLang("ru");
+        prefs.saveLanguagesList(languages);
+        prefs.setLangsTimestamp(new Date());
+        prefs.flush();
+
+        LookupStore store = new LookupStore(new File(mContext.getFilesDir(), LookupStore.DIR_NAME));
+        for (int i = 0; i < STORED_LOOKUPS; i++) {
+            LookupKey key = new LookupKey("en-ru", "word" + i, 0);
+            assertTrue(store.put(key, definitions(key.text)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (mPresenter != null) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    mPresenter.detach();
+                }
+            });
+        }
+        if (mInjector != null) {
+            // wait for warm-up to finish reading files
+            mInjector.lookupStore().preload();
+        }
+        mContext.getPreferences().edit().clear().commit();
+        delete(mContext.getPreferencesFile());
+        delete(mDir);
+    }
+
+    @Test
+    public void cachedLanguages() throws InterruptedException {
+        final long start = System.nanoTime();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                mInjector = DaggerInjector.builder()
+                        .mainModule(new MainModule(mContext))
+                        .build();
+                mInjector.warmUp().start();
+                mPresenter = mInjector.presenterFactory().getMainPresenter(new Bundle());
+                mPresenter.attach(mView);
+                mPresenter.loadLanguages();
+                mView.mainThreadTime = elapsed(start);
+            }
+        });
+        assertTrue("languages were not delivered", mView.languagesLatch.await(5, TimeUnit.SECONDS));
+        long languages = elapsed(start);
+        mInjector.lookupStore().preload();
+        long stored = elapsed(start);
+        System.out.println("ColdStartTest: main thread " + mView.mainThreadTime + "ms, languages " +
+                languages + "ms, stored lookups " + stored + "ms");
+
+        assertNotNull(mView.languages);
+        assertEquals(LANGUAGES + 2, mView.languages.size());
+        assertTrue("main thread: " + mView.mainThreadTime + "ms", mView.mainThreadTime <= MAIN_THREAD_BUDGET);
+        assertTrue("languages: " + languages + "ms", languages <= LANGUAGES_BUDGET);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Helpers
+    ///////////////////////////////////////////////////////////////////////////
+
+    private static long elapsed(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static List<Definition> definitions(String text) {
+        Translation translation = new Translation();
+        translation.text = text + " (ru)";
+        translation.pos = "noun";
+        Definition definition = new Definition();
+        definition.text = text;
+        definition.pos = "noun";
+        definition.tr = new Translation[]{translation};
+        return Collections.singletonList(definition);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            System.out.println("ColdStartTest: delete failed: " + file);
+        }
+    }
+
+    /**
+     * Application context, which keeps files and default preferences in the given directory.
+     */
+    private static class StartupContext extends ContextWrapper {
+        private final File mFilesDir;
+        private final String mPreferencesName;
+
+        StartupContext(Context base, File dir) {
+            super(base);
+            mFilesDir = new File(dir, "files");
+            mPreferencesName = "cold-start-" + dir.getName();
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+
+        @Override
+        public File getFilesDir() {
+            if (!mFilesDir.exists() && !mFilesDir.mkdirs()) {
+                throw new IllegalStateException("Cannot create " + mFilesDir);
+            }
+            return mFilesDir;
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(String name, int mode) {
+            return super.getSharedPreferences(mPreferencesName, mode);
+        }
+
+        SharedPreferences getPreferences() {
+            return getSharedPreferences(mPreferencesName, MODE_PRIVATE);
+        }
+
+        File getPreferencesFile() {
+            File dir = new File(getApplicationInfo().dataDir, "shared_prefs");
+            return new File(dir, mPreferencesName + ".xml");
+        }
+    }
+
+    private static class View implements MainView {
+        final CountDownLatch languagesLatch = new CountDownLatch(1);
+        volatile List<Language> languages;
+        volatile long mainThreadTime;
+
+        @Override
+        public void onLanguagesResult(List<Language> languages, int destIndex, int sourceIndex) {
+            this.languages = languages;
+            languagesLatch.countDown();
+        }
+
+        @Override
+        public void onLanguagesError() {
+            languagesLatch.countDown();
+        }
+
+        @Override
+        public void onLookupResult(Result result) {
+        }
+
+        @Override
+        public void onSectionResult(int position, Language target, Result result, boolean reset) {
+        }
+
+        @Override
+        public void onEmptyResult() {
+        }
+
+        @Override
+        public void onStoredSearchResult(List<TranslationIndex.Hit> hits) {
+        }
+
+        @Override
+        public void onSuggestions(List<SpellingCorrector.Suggestion> suggestions) {
+        }
+
+        @Override
+        public void onAutoCorrected(SpellingCorrector.Suggestion suggestion) {
+        }
+
+        @Override
+        public void onError(int error) {
+        }
+    }
+
+}
@@ -16,26 +16,53 @@
 package com.italankin.dictionary;
 
 import android.app.Application;
+import android.os.SystemClock;
+import android.util.Log;
 
 import com.italankin.dictionary.di.components.DaggerInjector;
 import com.italankin.dictionary.di.components.Injector;
 import com.italankin.dictionary.di.modules.MainModule;
+import com.italankin.dictionary.utils.Logger;
 
 public class App extends Application {
 
     private static Injector injector;
+    private static long startTime;
 
     @Override
     public void onCreate() {
+        startTime = SystemClock.uptimeMillis();
         super.onCreate();
 
+        if (BuildConfig.DEBUG) {
+            Logger.setPrinter(new Logger.Printer() {
+                @Override
+                public void d(String tag, String message) {
+                    Log.d(tag, message);
+                }
+
+                @Override
+                public void e(String tag, String message, Throwable throwable) {
+                    Log.e(tag, message, throwable);
+                }
+            });
+        }
+
         injector = DaggerInjector.builder()
                 .mainModule(new MainModule(this))
                 .build();
+        injector.warmUp().start();
     }
 
     public static Injector injector() {
         return injector;
     }
 
+    /**
+     * @return time of {@link #onCreate()} call in {@link SystemClock#uptimeMillis()} time base
+     */
+    public static long startTime() {
+        return startTime;
+    }
+
 }
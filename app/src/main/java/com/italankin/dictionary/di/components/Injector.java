@@ -16,7 +16,14 @@
 package com.italankin.dictionary.di.components;
 
 import com.italankin.dictionary.di.modules.MainModule;
+import com.italankin.dictionary.prefetch.Prefetcher;
+import com.italankin.dictionary.ui.PresenterFactory;
 import com.italankin.dictionary.ui.main.MainActivity;
+import com.italankin.dictionary.ui.settings.SettingsActivity;
+import com.italankin.dictionary.ui.translation.TranslationActivity;
+import com.italankin.dictionary.utils.CachedLookup;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.WarmUp;
 
 import javax.inject.Singleton;
 
@@ -31,4 +38,18 @@ public interface Injector {
 
     void inject(MainActivity target);
 
+    void inject(TranslationActivity target);
+
+    void inject(SettingsActivity target);
+
+    WarmUp warmUp();
+
+    Prefetcher prefetcher();
+
+    CachedLookup cachedLookup();
+
+    PresenterFactory presenterFactory();
+
+    LookupStore lookupStore();
+
 }
@@ -19,18 +19,28 @@ import android.content.ClipboardManager;
 import android.content.Context;
 import android.view.inputmethod.InputMethodManager;
 
-import com.italankin.dictionary.App;
 import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.prefetch.Prefetcher;
 import com.italankin.dictionary.ui.PresenterFactory;
+import com.italankin.dictionary.utils.CachedLookup;
+import com.italankin.dictionary.utils.LookupStore;
 import com.italankin.dictionary.utils.NetworkInterceptor;
+import com.italankin.dictionary.utils.ResultRegistry;
+import com.italankin.dictionary.utils.RxSchedulers;
 import com.italankin.dictionary.utils.SharedPrefs;
+import com.italankin.dictionary.utils.WarmUp;
+
+import java.io.File;
 
 import javax.inject.Singleton;
 
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
 import okhttp3.OkHttpClient;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.schedulers.Schedulers;
 
 /**
  * Main application module, contains main dependencies.
@@ -38,10 +48,13 @@ import okhttp3.OkHttpClient;
 @Module
 public class MainModule {
 
-    private final App application;
+    private final Context application;
 
-    public MainModule(App app) {
-        application = app;
+    /**
+     * @param context application context
+     */
+    public MainModule(Context context) {
+        application = context;
     }
 
     @Provides
@@ -68,6 +81,24 @@ public class MainModule {
         return new SharedPrefs(application);
     }
 
+    @Provides
+    @Singleton
+    LookupStore provideLookupStore() {
+        return new LookupStore(new File(application.getFilesDir(), LookupStore.DIR_NAME));
+    }
+
+    @Provides
+    @Singleton
+    ResultRegistry provideResultRegistry() {
+        return new ResultRegistry();
+    }
+
+    @Provides
+    @Singleton
+    RxSchedulers provideSchedulers() {
+        return new RxSchedulers(AndroidSchedulers.mainThread(), Schedulers.io(), Schedulers.computation());
+    }
+
     @Provides
     @Singleton
     OkHttpClient provideOkHttpClient() {
@@ -86,8 +117,29 @@ public class MainModule {
 
     @Provides
     @Singleton
-    PresenterFactory providePresenterFactory(ApiClient client, SharedPrefs prefs) {
-        return new PresenterFactory(client, prefs);
+    PresenterFactory providePresenterFactory(Lazy<ApiClient> client, SharedPrefs prefs, LookupStore store,
+            ResultRegistry registry, WarmUp warmUp, RxSchedulers schedulers) {
+        return new PresenterFactory(client, prefs, store, registry, warmUp, schedulers);
+    }
+
+    @Provides
+    @Singleton
+    WarmUp provideWarmUp(Context context, Lazy<ApiClient> client, Lazy<OkHttpClient> httpClient,
+            Lazy<SharedPrefs> prefs, Lazy<LookupStore> store, Lazy<Prefetcher> prefetcher) {
+        return new WarmUp(context, client, httpClient, prefs, store, prefetcher);
+    }
+
+    @Provides
+    @Singleton
+    Prefetcher providePrefetcher(Context context, Lazy<ApiClient> client, SharedPrefs prefs,
+            LookupStore store) {
+        return new Prefetcher(context, client, prefs, store);
+    }
+
+    @Provides
+    @Singleton
+    CachedLookup provideCachedLookup(Lazy<ApiClient> client, LookupStore store, ResultRegistry registry) {
+        return new CachedLookup(client, BuildConfig.API_KEY, store, registry);
     }
 
 }
@@ -1,63 +0,0 @@
-/*
- * Copyright 2016 Igor Talankin
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.italankin.dictionary.dto;
-
-import android.os.Parcel;
-import android.os.Parcelable;
-import android.support.annotation.NonNull;
-
-public class Definition extends Attribute {
-
-    /**
-     * Transcription
-     */
-    public String ts;
-
-    /**
-     * Array of translations
-     */
-    public Translation[] tr;
-
-    ///////////////////////////////////////////////////////////////////////////
-    // Parcelable
-    ///////////////////////////////////////////////////////////////////////////
-
-    protected Definition(Parcel in) {
-        super(in);
-        ts = in.readString();
-        tr = in.createTypedArray(Translation.CREATOR);
-    }
-
-    @Override
-    public void writeToParcel(@NonNull Parcel dest, int flags) {
-        super.writeToParcel(dest, flags);
-        dest.writeString(ts);
-        dest.writeTypedArray(tr, 0);
-    }
-
-    public static final Creator<Definition> CREATOR = new Parcelable.Creator<Definition>() {
-        @Override
-        public Definition createFromParcel(Parcel in) {
-            return new Definition(in);
-        }
-
-        @Override
-        public Definition[] newArray(int size) {
-            return new Definition[size];
-        }
-    };
-
-}
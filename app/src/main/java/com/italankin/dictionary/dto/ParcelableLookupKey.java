@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * {@link Parcelable} wrapper of {@link LookupKey} for passing keys in intents and saved state.
+ */
+public final class ParcelableLookupKey implements Parcelable {
+
+    public final LookupKey key;
+
+    public ParcelableLookupKey(LookupKey key) {
+        this.key = key;
+    }
+
+    private ParcelableLookupKey(Parcel in) {
+        key = new LookupKey(in.readString(), in.readString(), in.readInt());
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(key.lang);
+        dest.writeString(key.text);
+        dest.writeInt(key.flags);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<ParcelableLookupKey> CREATOR = new Creator<ParcelableLookupKey>() {
+        @Override
+        public ParcelableLookupKey createFromParcel(Parcel in) {
+            return new ParcelableLookupKey(in);
+        }
+
+        @Override
+        public ParcelableLookupKey[] newArray(int size) {
+            return new ParcelableLookupKey[size];
+        }
+    };
+
+}
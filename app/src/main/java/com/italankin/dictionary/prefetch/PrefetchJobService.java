@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.prefetch;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+
+import com.italankin.dictionary.App;
+
+/**
+ * Runs prefetch on API 21+. Charging and unmetered network conditions are enforced by
+ * the system, which stops the job when they are no longer met.
+ */
+@TargetApi(21)
+public class PrefetchJobService extends JobService {
+
+    private volatile boolean mStopped;
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+        mStopped = false;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                App.injector().prefetcher().run(new Prefetcher.Condition() {
+                    @Override
+                    public boolean isSatisfied() {
+                        return !mStopped;
+                    }
+                });
+                if (!mStopped) {
+                    jobFinished(params, false);
+                }
+            }
+        }, "Prefetch").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        mStopped = true;
+        // run again, when conditions are met
+        return true;
+    }
+
+}
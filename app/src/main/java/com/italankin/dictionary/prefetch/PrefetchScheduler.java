@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.prefetch;
+
+import android.annotation.TargetApi;
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.SystemClock;
+
+/**
+ * Schedules periodic prefetch, which runs when device is charging and connected to unmetered
+ * network: with {@link JobScheduler} on API 21+, with {@link AlarmManager} on older devices.
+ */
+public final class PrefetchScheduler {
+
+    static final int JOB_ID = 1;
+    static final String ACTION_PREFETCH = "com.italankin.dictionary.action.PREFETCH";
+
+    private static final long INTERVAL = AlarmManager.INTERVAL_HALF_DAY;
+
+    private PrefetchScheduler() {
+        // no instances
+    }
+
+    /**
+     * Schedule periodic prefetch, if it is not scheduled yet.
+     *
+     * @param context context
+     */
+    public static void schedule(Context context) {
+        if (Build.VERSION.SDK_INT >= 21) {
+            scheduleJob(context);
+        } else {
+            scheduleAlarm(context);
+        }
+    }
+
+    /**
+     * Check if device is charging and connected to unmetered network. Used on devices without
+     * {@link JobScheduler}, which checks these conditions by itself.
+     *
+     * @param context context
+     * @return {@code true}, if prefetch can run
+     */
+    static boolean canPrefetch(Context context) {
+        Context app = context.getApplicationContext();
+        Intent battery = app.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        int status = battery != null ? battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1) : -1;
+        if (status != BatteryManager.BATTERY_STATUS_CHARGING && status != BatteryManager.BATTERY_STATUS_FULL) {
+            return false;
+        }
+        ConnectivityManager cm = (ConnectivityManager) app.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo info = cm.getActiveNetworkInfo();
+        if (info == null || !info.isConnected()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= 16) {
+            return !cm.isActiveNetworkMetered();
+        }
+        return info.getType() == ConnectivityManager.TYPE_WIFI ||
+                info.getType() == ConnectivityManager.TYPE_ETHERNET;
+    }
+
+    @TargetApi(21)
+    private static void scheduleJob(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            if (job.getId() == JOB_ID) {
+                return;
+            }
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, PrefetchJobService.class))
+                .setRequiresCharging(true)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(INTERVAL)
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    private static void scheduleAlarm(Context context) {
+        Intent intent = new Intent(context, PrefetchReceiver.class).setAction(ACTION_PREFETCH);
+        if (PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_NO_CREATE) != null) {
+            return;
+        }
+        PendingIntent operation = PendingIntent.getBroadcast(context, 0, intent, 0);
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.setInexactRepeating(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                SystemClock.elapsedRealtime() + INTERVAL, INTERVAL, operation);
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.prefetch;
+
+import android.app.IntentService;
+import android.content.Intent;
+
+import com.italankin.dictionary.App;
+
+/**
+ * Runs prefetch on devices without JobScheduler, started by {@link PrefetchReceiver}.
+ */
+public class PrefetchService extends IntentService {
+
+    public PrefetchService() {
+        super("PrefetchService");
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        try {
+            App.injector().prefetcher().run(new Prefetcher.Condition() {
+                @Override
+                public boolean isSatisfied() {
+                    return PrefetchScheduler.canPrefetch(PrefetchService.this);
+                }
+            });
+        } finally {
+            PrefetchReceiver.completeWakefulIntent(intent);
+        }
+    }
+
+}
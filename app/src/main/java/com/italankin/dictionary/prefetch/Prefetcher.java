@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.prefetch;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.italankin.dictionary.BuildConfig;
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.SharedPrefs;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import dagger.Lazy;
+
+/**
+ * Fetches results for the most frequently looked up words of the current translation direction
+ * into {@link LookupStore}, so they are served locally later. Words are taken from the user's
+ * lookups and from the bundled frequency list of the source language
+ * ({@code assets/frequent/<lang>.txt}).
+ */
+public class Prefetcher {
+
+    /**
+     * Maximum number of words checked in one run
+     */
+    private static final int MAX_WORDS = 200;
+
+    /**
+     * Number of user's own words in the list
+     */
+    private static final int MAX_HISTORY_WORDS = 50;
+
+    /**
+     * Minimum interval between requests, in milliseconds
+     */
+    private static final long REQUEST_INTERVAL = 2000;
+
+    /**
+     * Stop after this number of consecutive failed requests
+     */
+    private static final int MAX_ERRORS = 3;
+
+    private static final String FREQUENT_DIR = "frequent/";
+
+    private final Context mContext;
+    private final Lazy<ApiClient> mClient;
+    private final SharedPrefs mPrefs;
+    private final LookupStore mStore;
+
+    public Prefetcher(Context context, Lazy<ApiClient> client, SharedPrefs prefs, LookupStore store) {
+        mContext = context;
+        mClient = client;
+        mPrefs = prefs;
+        mStore = store;
+    }
+
+    /**
+     * Schedule periodic prefetch, if it was never scheduled. Schedule is persisted and restored
+     * after reboot by {@link PrefetchReceiver}.
+     */
+    public void schedule() {
+        if (mPrefs.isPrefetchScheduled()) {
+            return;
+        }
+        PrefetchScheduler.schedule(mContext);
+        mPrefs.setPrefetchScheduled();
+    }
+
+    /**
+     * Fetch results for words, which are not stored yet. Blocks until finished, should be called
+     * from background thread.
+     *
+     * @param condition condition checked before every request
+     * @return number of fetched results
+     */
+    public int run(Condition condition) {
+        String source = mPrefs.getSourceLang();
+        String dest = mPrefs.getDestLang();
+        if (source == null || dest == null || !mPrefs.getSettings().prefetch) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        String lang = source + "-" + dest;
+        @ApiClient.LookupFlags int flags = mPrefs.getSettings().searchFilter;
+        String ui = Locale.getDefault().getLanguage();
+        mStore.preload();
+        int fetched = 0, errors = 0;
+        for (String word : collectWords(source)) {
+            LookupKey key = new LookupKey(lang, word, flags);
+            if (mStore.contains(key)) {
+                continue;
+            }
+            if (!condition.isSatisfied()) {
+                break;
+            }
+            try {
+                List<Definition> definitions = mClient.get()
+                        .lookup(BuildConfig.API_KEY, lang, word, ui, flags)
+                        .toBlocking()
+                        .first();
+                if (!definitions.isEmpty() && mStore.put(key, definitions)) {
+                    fetched++;
+                }
+                errors = 0;
+            } catch (RuntimeException e) {
+                if (BuildConfig.DEBUG) {
+                    Log.e("Prefetcher", "run: " + word, e);
+                }
+                if (++errors == MAX_ERRORS) {
+                    break;
+                }
+            }
+            SystemClock.sleep(REQUEST_INTERVAL);
+        }
+        if (BuildConfig.DEBUG) {
+            Log.d("Prefetcher", "run: " + fetched + " results in " +
+                    (System.currentTimeMillis() - start) + "ms");
+        }
+        return fetched;
+    }
+
+    /**
+     * @return user's most frequent words followed by the bundled frequency list
+     */
+    private Set<String> collectWords(String sourceLang) {
+        Set<String> words = new LinkedHashSet<>();
+        String[] history = new String[MAX_HISTORY_WORDS];
+        int count = mStore.complete(sourceLang, "", history);
+        for (int i = 0; i < count; i++) {
+            words.add(history[i]);
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    mContext.getAssets().open(FREQUENT_DIR + sourceLang + ".txt"), "UTF-8"));
+            String line;
+            while (words.size() < MAX_WORDS && (line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    words.add(line.toLowerCase(Locale.ROOT));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // no frequency list for this language
+        } catch (IOException e) {
+            if (BuildConfig.DEBUG) {
+                Log.e("Prefetcher", "collectWords: ", e);
+            }
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Condition for continuing prefetch.
+     */
+    public interface Condition {
+        /**
+         * @return {@code true}, if prefetch can continue
+         */
+        boolean isSatisfied();
+    }
+
+}
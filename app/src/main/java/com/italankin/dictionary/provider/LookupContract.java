@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.provider;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.provider.BaseColumns;
+
+/**
+ * Contract of {@link LookupProvider} for other applications.
+ * <p>
+ * Query URI: {@code content://com.italankin.dictionary.lookup/lookup/<lang>?q=word&q=word...},
+ * where {@code lang} is a translation direction (ex. "en-ru"). Every {@link #PARAM_QUERY}
+ * parameter is a separate word, all words are looked up in a single call. Cursor contains a row
+ * per translation, rows of every word follow the order of the words. Words without results
+ * have no rows.
+ * <p>
+ * Callers must hold {@link #PERMISSION_READ}, which is granted only to applications signed with
+ * the same certificate, because lookups may use network and the API key of this application.
+ */
+public final class LookupContract {
+
+    public static final String AUTHORITY = "com.italankin.dictionary.lookup";
+    public static final String PERMISSION_READ = "com.italankin.dictionary.permission.READ_LOOKUPS";
+
+    public static final String PATH_LOOKUP = "lookup";
+    public static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/" + PATH_LOOKUP);
+
+    public static final String CONTENT_TYPE = ContentResolver.CURSOR_DIR_BASE_TYPE +
+            "/vnd.com.italankin.dictionary.translation";
+
+    /**
+     * Word to lookup, may be repeated
+     */
+    public static final String PARAM_QUERY = "q";
+    /**
+     * Search flags, see {@code ApiClient.LookupFlags}, {@code 0} by default
+     */
+    public static final String PARAM_FLAGS = "flags";
+    /**
+     * {@code "true"} to return stored results only, without network requests
+     */
+    public static final String PARAM_CACHE_ONLY = "cache_only";
+
+    /**
+     * Maximum number of words in a single query
+     */
+    public static final int MAX_WORDS = 50;
+
+    private LookupContract() {
+        // no instances
+    }
+
+    /**
+     * @param lang  translation direction (ex. "en-ru")
+     * @param words words to lookup
+     * @return query URI
+     */
+    public static Uri buildLookupUri(String lang, String... words) {
+        Uri.Builder builder = CONTENT_URI.buildUpon().appendPath(lang);
+        for (String word : words) {
+            builder.appendQueryParameter(PARAM_QUERY, word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Columns of the lookup cursor.
+     */
+    public static final class Translations implements BaseColumns {
+        /**
+         * Word as it was queried
+         */
+        public static final String QUERY = "query";
+        /**
+         * Headword of the result
+         */
+        public static final String WORD = "word";
+        public static final String TRANSCRIPTION = "transcription";
+        /**
+         * Index of the translation within the word's result
+         */
+        public static final String POSITION = "position";
+        public static final String TEXT = "text";
+        /**
+         * Part of speech, may be {@code null}
+         */
+        public static final String POS = "pos";
+        /**
+         * Means, separated by comma, may be empty
+         */
+        public static final String MEANS = "means";
+        /**
+         * Synonyms, separated by comma, may be empty
+         */
+        public static final String SYNONYMS = "synonyms";
+
+        public static final String[] ALL = {
+                _ID, QUERY, WORD, TRANSCRIPTION, POSITION, TEXT, POS, MEANS, SYNONYMS
+        };
+
+        private Translations() {
+            // no instances
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.provider;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.italankin.dictionary.App;
+import com.italankin.dictionary.di.components.Injector;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.TranslationView;
+import com.italankin.dictionary.provider.LookupContract.Translations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Read-only provider of lookup results for other applications, see {@link LookupContract}.
+ * Results are served from local storage when possible, so repeated queries do not cause
+ * network requests.
+ */
+public class LookupProvider extends ContentProvider {
+
+    private static final int MATCH_LOOKUP = 1;
+
+    private static final UriMatcher MATCHER = new UriMatcher(UriMatcher.NO_MATCH);
+
+    static {
+        MATCHER.addURI(LookupContract.AUTHORITY, LookupContract.PATH_LOOKUP + "/*", MATCH_LOOKUP);
+    }
+
+    @Override
+    public boolean onCreate() {
+        // dependencies are not available until Application.onCreate()
+        return true;
+    }
+
+    /**
+     * Lookup words of the {@code uri}. Called on a binder thread, blocks until all results are
+     * received.
+     */
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder) {
+        if (MATCHER.match(uri) != MATCH_LOOKUP) {
+            throw new IllegalArgumentException("Unknown uri: " + uri);
+        }
+        String lang = uri.getLastPathSegment();
+        int flags = parseFlags(uri.getQueryParameter(LookupContract.PARAM_FLAGS));
+        boolean cacheOnly = Boolean.parseBoolean(uri.getQueryParameter(LookupContract.PARAM_CACHE_ONLY));
+        List<String> words = new ArrayList<>();
+        for (String word : uri.getQueryParameters(LookupContract.PARAM_QUERY)) {
+            if (!TextUtils.isEmpty(word.trim())) {
+                words.add(word);
+            }
+        }
+        if (words.size() > LookupContract.MAX_WORDS) {
+            throw new IllegalArgumentException("Too many words: " + words.size());
+        }
+        List<LookupKey> keys = new ArrayList<>(words.size());
+        for (String word : words) {
+            keys.add(new LookupKey(lang, word, flags));
+        }
+        Injector injector = App.injector();
+        if (injector == null) {
+            // queried before application was created
+            return null;
+        }
+        String ui = Locale.getDefault().getLanguage();
+        List<Result> results = injector.cachedLookup().lookup(keys, ui, cacheOnly);
+
+        MatrixCursor cursor = new MatrixCursor(projection != null ? projection : Translations.ALL);
+        String[] columns = cursor.getColumnNames();
+        long id = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            if (result == null) {
+                continue;
+            }
+            for (int t = 0, count = result.getTranslationCount(); t < count; t++) {
+                MatrixCursor.RowBuilder row = cursor.newRow();
+                TranslationView tr = result.getTranslation(t);
+                for (String column : columns) {
+                    row.add(value(column, id, words.get(i), result, tr));
+                }
+                id++;
+            }
+        }
+        return cursor;
+    }
+
+    private static Object value(String column, long id, String query, Result result, TranslationView tr) {
+        switch (column) {
+            case Translations._ID:
+                return id;
+            case Translations.QUERY:
+                return query;
+            case Translations.WORD:
+                return result.text;
+            case Translations.TRANSCRIPTION:
+                return result.transcription;
+            case Translations.POSITION:
+                return tr.getIndex();
+            case Translations.TEXT:
+                return tr.getText();
+            case Translations.POS:
+                return tr.getPos();
+            case Translations.MEANS:
+                return tr.getMeans();
+            case Translations.SYNONYMS:
+                return tr.getSynonyms();
+            default:
+                throw new IllegalArgumentException("Unknown column: " + column);
+        }
+    }
+
+    private static int parseFlags(String flags) {
+        if (flags == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(flags);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid flags: " + flags);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return MATCHER.match(uri) == MATCH_LOOKUP ? LookupContract.CONTENT_TYPE : null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException("Provider is read-only");
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Provider is read-only");
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("Provider is read-only");
+    }
+
+}
@@ -17,34 +17,53 @@ package com.italankin.dictionary.ui;
 
 import android.os.Bundle;
 
+import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.ParcelableLookupKey;
+import com.italankin.dictionary.dto.Result;
 import com.italankin.dictionary.ui.main.MainPresenter;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.ResultRegistry;
+import com.italankin.dictionary.utils.RxSchedulers;
 import com.italankin.dictionary.utils.SharedPrefs;
+import com.italankin.dictionary.utils.WarmUp;
 
 import java.util.WeakHashMap;
 
+import dagger.Lazy;
+
 /**
  * Class manages created presenters and delivers to recreated activities their old presenters.
  */
 public final class PresenterFactory {
 
     private static final String KEY_PRESENTER_ID = "@@presenter_id";
+    private static final String KEY_LAST_RESULT = "last_result";
 
-    private final ApiClient api;
+    private final Lazy<ApiClient> api;
     private final SharedPrefs prefs;
+    private final LookupStore store;
+    private final ResultRegistry registry;
+    private final WarmUp warmUp;
+    private final RxSchedulers schedulers;
 
     private int mCount = 0;
     private WeakHashMap<Integer, MainPresenter> mainPresenters = new WeakHashMap<>(0);
 
-    public PresenterFactory(ApiClient api, SharedPrefs prefs) {
+    public PresenterFactory(Lazy<ApiClient> api, SharedPrefs prefs, LookupStore store,
+            ResultRegistry registry, WarmUp warmUp, RxSchedulers schedulers) {
         this.api = api;
         this.prefs = prefs;
+        this.store = store;
+        this.registry = registry;
+        this.warmUp = warmUp;
+        this.schedulers = schedulers;
     }
 
     /**
      * Get instance of {@link MainPresenter}. If passed {@code bundle} does not
      * contain {@link #KEY_PRESENTER_ID} value or it's invalid, the new instance of presenter
-     * will be created.
+     * will be created and its state will be restored from the {@code bundle}.
      *
      * @param bundle bundle, containing (or not) presenter indentifier
      * @return presenter
@@ -58,14 +77,37 @@ public final class PresenterFactory {
         if (instance == null) {
             mCount++;
             instance = createMainPresenter();
+            restoreMainPresenterState(instance, bundle);
             mainPresenters.put(mCount, instance);
             bundle.putInt(KEY_PRESENTER_ID, mCount);
         }
         return instance;
     }
 
+    /**
+     * Save state of the {@link MainPresenter}. Only the key of the last result is saved, the result
+     * itself is kept in {@link LookupStore}.
+     *
+     * @param presenter presenter
+     * @param bundle    bundle to save state to
+     */
+    public void saveMainPresenterState(MainPresenter presenter, Bundle bundle) {
+        Result result = presenter.getLastResult();
+        if (result != null) {
+            bundle.putParcelable(KEY_LAST_RESULT, new ParcelableLookupKey(result.key));
+        }
+    }
+
+    private static void restoreMainPresenterState(MainPresenter presenter, Bundle bundle) {
+        bundle.setClassLoader(ParcelableLookupKey.class.getClassLoader());
+        ParcelableLookupKey parcel = bundle.getParcelable(KEY_LAST_RESULT);
+        if (parcel != null) {
+            presenter.restoreLastResult(parcel.key);
+        }
+    }
+
     private MainPresenter createMainPresenter() {
-        return new MainPresenter(api, prefs);
+        return new MainPresenter(api, BuildConfig.API_KEY, prefs, store, registry, warmUp, schedulers);
     }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+/**
+ * Adapter for autocompletion of the input text with previously looked up words.
+ * <p>
+ * Completions are found in memory in a fraction of millisecond on the filter thread and
+ * published on the main thread.
+ */
+class CompletionAdapter extends BaseAdapter implements Filterable {
+
+    private static final int MAX_COMPLETIONS = 5;
+
+    private final LayoutInflater mInflater;
+    private final MainPresenter mPresenter;
+    private String[] mItems = new String[0];
+    private int mCount = 0;
+
+    private final Filter mFilter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            if (constraint != null) {
+                // published items are read on the main thread, so every query gets a new array
+                String[] items = new String[MAX_COMPLETIONS];
+                results.count = mPresenter.complete(constraint, items);
+                results.values = items;
+            }
+            return results;
+        }
+
+        @Override
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            if (results.count > 0) {
+                mItems = (String[]) results.values;
+                mCount = results.count;
+                notifyDataSetChanged();
+            } else {
+                mCount = 0;
+                notifyDataSetInvalidated();
+            }
+        }
+    };
+
+    public CompletionAdapter(Context context, MainPresenter presenter) {
+        mInflater = LayoutInflater.from(context);
+        mPresenter = presenter;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public String getItem(int position) {
+        return mItems[position];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) convertView;
+        if (view == null) {
+            view = (TextView) mInflater.inflate(android.R.layout.simple_dropdown_item_1line, parent, false);
+        }
+        view.setText(mItems[position]);
+        return view;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return mFilter;
+    }
+
+}
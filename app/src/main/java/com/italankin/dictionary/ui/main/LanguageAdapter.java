@@ -105,6 +105,14 @@ class LanguageAdapter extends BaseAdapter implements CompoundButton.OnCheckedCha
         return dataset.get(position);
     }
 
+    /**
+     * @param language language
+     * @return position of the language, or {@code -1}, if it is not in the list
+     */
+    public int indexOf(Language language) {
+        return dataset.indexOf(language);
+    }
+
     @Override
     public long getItemId(int position) {
         return getItem(position).hashCode();
@@ -23,6 +23,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.design.widget.CoordinatorLayout;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
@@ -32,32 +33,43 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 import android.view.animation.DecelerateInterpolator;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.EditText;
+import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.italankin.dictionary.App;
+import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.R;
 import com.italankin.dictionary.dto.Language;
 import com.italankin.dictionary.dto.Result;
-import com.italankin.dictionary.dto.TranslationEx;
+import com.italankin.dictionary.dto.TranslationView;
 import com.italankin.dictionary.ui.PresenterFactory;
 import com.italankin.dictionary.ui.settings.SettingsActivity;
 import com.italankin.dictionary.ui.translation.TranslationActivity;
 import com.italankin.dictionary.utils.SharedPrefs;
+import com.italankin.dictionary.utils.SpellingCorrector;
+import com.italankin.dictionary.utils.TranslationIndex;
+import com.italankin.dictionary.utils.WarmUp;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -72,7 +84,7 @@ import butterknife.OnLongClick;
 
 import static android.widget.AdapterView.OnItemSelectedListener;
 
-public class MainActivity extends AppCompatActivity {
+public class MainActivity extends AppCompatActivity implements MainView {
 
     private static final int SWITCH_ANIM_DURATION = 450;
     private static final int SWAP_LANGS_ANIM_DURATION = 300;
@@ -82,6 +94,12 @@ public class MainActivity extends AppCompatActivity {
 
     private static final int REQUEST_CODE_SHARE = 17;
 
+    /**
+     * Expected time from application start to the first frame, in milliseconds
+     */
+    private static final long COLD_START_BUDGET = 800;
+    private static boolean sStartupReported = false;
+
     private static final String KEY_PRESENTER_BUNDLE = "presenter_bundle";
 
     @Inject
@@ -90,6 +108,9 @@ public class MainActivity extends AppCompatActivity {
     @Inject
     SharedPrefs prefs;
 
+    @Inject
+    WarmUp warmUp;
+
     @Inject
     InputMethodManager inputManager;
 
@@ -104,10 +125,10 @@ public class MainActivity extends AppCompatActivity {
     CoordinatorLayout mRoot;
 
     /**
-     * EditText for text input
+     * EditText for text input with autocompletion
      */
     @BindView(R.id.edit_input)
-    EditText mInput;
+    AutoCompleteTextView mInput;
 
     @BindView(R.id.input_card)
     View mInputLayout;
@@ -172,6 +193,9 @@ public class MainActivity extends AppCompatActivity {
 
         setContentView(R.layout.activity_main);
         ButterKnife.bind(this);
+        if (BuildConfig.DEBUG && !sStartupReported) {
+            reportStartupTime();
+        }
 
         setSupportActionBar(toolbar);
         setupInputLayout();
@@ -179,6 +203,7 @@ public class MainActivity extends AppCompatActivity {
         setControlsState(false);
 
         mPresenter.loadLanguages();
+        warmUp.onMainActivityStart();
     }
 
     private void setupInputLayout() {
@@ -220,6 +245,13 @@ public class MainActivity extends AppCompatActivity {
                 return false;
             }
         });
+        mInput.setAdapter(new CompletionAdapter(this, mPresenter));
+        mInput.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                startLookup();
+            }
+        });
         mInput.setOnFocusChangeListener(new View.OnFocusChangeListener() {
             @Override
             public void onFocusChange(View v, boolean hasFocus) {
@@ -230,6 +262,16 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Set input text without showing completions for it.
+     *
+     * @param text text
+     */
+    private void setInputText(CharSequence text) {
+        mInput.setText(text);
+        mInput.dismissDropDown();
+    }
+
     private void setupRecyclerView() {
         mRecyclerView.setHasFixedSize(true);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -240,33 +282,32 @@ public class MainActivity extends AppCompatActivity {
         mRecyclerViewAdapter.setListener(new TranslationAdapter.OnAdapterItemClickListener() {
             @Override
             public void onItemClick(int position) {
-                Result result = mPresenter.getLastResult();
-                TranslationEx item = result.translations.get(position);
-                startActivity(TranslationActivity.getStartIntent(getApplicationContext(), item));
+                Result result = mRecyclerViewAdapter.getItemResult(position);
+                startActivity(TranslationActivity.getStartIntent(getApplicationContext(),
+                        result.key, mRecyclerViewAdapter.getItem(position).getIndex()));
             }
 
             @Override
             public void onItemMenuClick(int position, int menuItemId) {
                 ClipData clip = null;
-                Result result = mPresenter.getLastResult();
-                TranslationEx item = result.translations.get(position);
+                TranslationView item = mRecyclerViewAdapter.getItem(position);
                 switch (menuItemId) {
                     case R.id.action_lookup_word:
-                        mInput.setText(item.text);
+                        setInputText(item.getText());
                         resetViewsState();
-                        startLookup(item.text);
+                        startLookup(item.getText());
                         break;
 
                     case R.id.action_copy_mean:
-                        clip = ClipData.newPlainText("means", item.means);
+                        clip = ClipData.newPlainText("means", item.getMeans());
                         break;
 
                     case R.id.action_copy_synonyms:
-                        clip = ClipData.newPlainText("synonyms", item.synonyms);
+                        clip = ClipData.newPlainText("synonyms", item.getSynonyms());
                         break;
 
                     case R.id.action_copy_translation:
-                        clip = ClipData.newPlainText("translation", item.text);
+                        clip = ClipData.newPlainText("translation", item.getText());
                         break;
                 }
                 if (clip != null) {
@@ -283,7 +324,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
         int fabVisibility = mShareFab.getVisibility();
-        if (prefs.showShareFab()) {
+        if (prefs.getSettings().showShareFab) {
             Result result = mPresenter.getLastResult();
             if (result != null && fabVisibility != View.VISIBLE) {
                 showShareFab();
@@ -297,18 +338,20 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
+        presenterFactory.saveMainPresenterState(mPresenter, mPresenterBundle);
         outState.putBundle(KEY_PRESENTER_BUNDLE, mPresenterBundle);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        mPresenter.saveLanguages();
+        prefs.flush();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        mRecyclerViewAdapter.cancelUpdates();
         mPresenter.detach();
         if (isFinishing()) {
             mPresenter.clearSubscriptions();
@@ -333,7 +376,7 @@ public class MainActivity extends AppCompatActivity {
             text = text.substring(0, Math.min(text.length(), max));
             if ("text/plain".equals(intent.getType()) && !TextUtils.isEmpty(text)) {
                 intent.setType(null);
-                mInput.setText(text);
+                setInputText(text);
                 resetViewsState();
                 startLookup(text);
             }
@@ -345,14 +388,14 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == REQUEST_CODE_SHARE && resultCode == RESULT_OK && prefs.closeOnShare()) {
+        if (requestCode == REQUEST_CODE_SHARE && resultCode == RESULT_OK && prefs.getSettings().closeOnShare) {
             finish();
         }
     }
 
     @Override
     public void onBackPressed() {
-        if (prefs.backFocusSearch()) {
+        if (prefs.getSettings().backFocusSearch) {
             if (mInput.hasFocus()) {
                 super.onBackPressed();
             } else {
@@ -400,6 +443,12 @@ public class MainActivity extends AppCompatActivity {
         return true;
     }
 
+    @OnLongClick({R.id.spinner_lang_source, R.id.spinner_lang_dest})
+    boolean onSpinnerLongClick(View view) {
+        showLanguagePickerDialog((Spinner) view);
+        return true;
+    }
+
     @OnClick(R.id.btn_share)
     void onShareFabClick() {
         shareLastResult();
@@ -426,6 +475,10 @@ public class MainActivity extends AppCompatActivity {
                 showHistoryDialog();
                 return true;
 
+            case R.id.action_search_stored:
+                searchStored();
+                return true;
+
             case R.id.action_settings:
                 startActivity(SettingsActivity.getStartIntent(this));
                 return true;
@@ -473,6 +526,95 @@ public class MainActivity extends AppCompatActivity {
         builder.show();
     }
 
+    private void showSuggestionsDialog(final List<SpellingCorrector.Suggestion> suggestions) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(R.string.dialog_suggestions);
+        ArrayAdapter<SpellingCorrector.Suggestion> adapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_list_item_1, suggestions);
+        builder.setAdapter(adapter, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                resetViewsState();
+                showProgressBar();
+                mPresenter.openStored(suggestions.get(which).key);
+            }
+        });
+        builder.show();
+    }
+
+    /**
+     * Show dialog for choosing language with search by name or code.
+     *
+     * @param spinner spinner, which language is chosen
+     */
+    private void showLanguagePickerDialog(final Spinner spinner) {
+        if (!spinner.isEnabled() || spinner.getAdapter() == null) {
+            return;
+        }
+        View content = getLayoutInflater().inflate(R.layout.dialog_language_picker, null);
+        EditText search = (EditText) content.findViewById(R.id.search);
+        ListView list = (ListView) content.findViewById(R.id.list);
+        final List<Language> languages = new ArrayList<>(mPresenter.filterLanguages(""));
+        final ArrayAdapter<Language> adapter = new ArrayAdapter<Language>(this,
+                android.R.layout.simple_list_item_1, languages) {
+            @Override
+            public View getView(int position, View convertView, ViewGroup parent) {
+                TextView text = (TextView) super.getView(position, convertView, parent);
+                text.setText(getItem(position).getName());
+                return text;
+            }
+        };
+        list.setAdapter(adapter);
+        search.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                languages.clear();
+                languages.addAll(mPresenter.filterLanguages(s));
+                adapter.notifyDataSetChanged();
+            }
+        });
+        final AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.dialog_language_picker)
+                .setView(content)
+                .create();
+        list.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                int index = ((LanguageAdapter) spinner.getAdapter()).indexOf(languages.get(position));
+                if (index >= 0) {
+                    spinner.setSelection(index);
+                }
+                dialog.dismiss();
+            }
+        });
+        dialog.getWindow().setSoftInputMode(WindowManager.LayoutParams.SOFT_INPUT_STATE_VISIBLE);
+        dialog.show();
+    }
+
+    private void showStoredSearchDialog(final List<TranslationIndex.Hit> hits) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(R.string.dialog_search_stored);
+        ArrayAdapter<TranslationIndex.Hit> adapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_list_item_1, hits);
+        builder.setAdapter(adapter, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                resetViewsState();
+                showProgressBar();
+                mPresenter.openStored(hits.get(which).key);
+            }
+        });
+        builder.show();
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // Lookup
     ///////////////////////////////////////////////////////////////////////////
@@ -496,6 +638,21 @@ public class MainActivity extends AppCompatActivity {
         startLookup(mInput.getText().toString());
     }
 
+    /**
+     * Search saved lookups by translation entered in the input field.
+     */
+    private void searchStored() {
+        String text = mInput.getText().toString().trim();
+        if (text.isEmpty()) {
+            Toast.makeText(this, R.string.msg_search_stored_empty, Toast.LENGTH_SHORT).show();
+            return;
+        }
+        showProgressBar();
+        inputManager.hideSoftInputFromWindow(mInput.getWindowToken(), 0);
+        mInput.clearFocus();
+        mPresenter.searchStored(text);
+    }
+
     /**
      * Called from {@link MainPresenter}, when languages have been fetched from cache/net.
      *
@@ -503,12 +660,16 @@ public class MainActivity extends AppCompatActivity {
      * @param destIndex   selected dest index
      * @param sourceIndex selected source index
      */
+    @Override
     public void onLanguagesResult(List<Language> languages, int destIndex, int sourceIndex) {
         final LanguageAdapter adapter = new LanguageAdapter(this, languages);
         adapter.setListener(new LanguageAdapter.CheckedChangeListener() {
             @Override
             public void onCheckedChange(Language language, boolean isChecked) {
-                language.setFavorite(isChecked);
+                mPresenter.setFavorite(language, isChecked);
+                if (!isChecked) {
+                    mPresenter.cancelTarget(language);
+                }
             }
         });
         mSpinnerSource.setAdapter(adapter);
@@ -519,14 +680,12 @@ public class MainActivity extends AppCompatActivity {
                 if (mPresenter.setSourceLanguage(position)) {
                     startLookup();
                 }
-                mPresenter.sortLanguages();
-                adapter.notifyDataSetChanged();
+                sortLanguages(adapter);
             }
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) {
-                mPresenter.sortLanguages();
-                adapter.notifyDataSetChanged();
+                sortLanguages(adapter);
             }
         });
         mSpinnerDest.setAdapter(adapter);
@@ -537,14 +696,12 @@ public class MainActivity extends AppCompatActivity {
                 if (mPresenter.setDestLanguage(position)) {
                     startLookup();
                 }
-                mPresenter.sortLanguages();
-                adapter.notifyDataSetChanged();
+                sortLanguages(adapter);
             }
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) {
-                mPresenter.sortLanguages();
-                adapter.notifyDataSetChanged();
+                sortLanguages(adapter);
             }
         });
 
@@ -576,6 +733,26 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Move favorite languages to the top, if they were changed, keeping selected languages.
+     *
+     * @param adapter adapter of the spinners
+     */
+    private void sortLanguages(LanguageAdapter adapter) {
+        if (mPresenter.sortLanguages()) {
+            adapter.notifyDataSetChanged();
+            setSelectionSilently(mSpinnerSource, mPresenter.getSourceLanguageIndex());
+            setSelectionSilently(mSpinnerDest, mPresenter.getDestLanguageIndex());
+        }
+    }
+
+    private static void setSelectionSilently(Spinner spinner, int position) {
+        OnItemSelectedListener listener = spinner.getOnItemSelectedListener();
+        spinner.setOnItemSelectedListener(null);
+        spinner.setSelection(position);
+        spinner.setOnItemSelectedListener(listener);
+    }
+
     private void swapLanguages() {
         if (!mPresenter.swapLanguages()) {
             return;
@@ -603,14 +780,8 @@ public class MainActivity extends AppCompatActivity {
                 new SwitchAnimation.OnSwitchListener() {
                     @Override
                     public void onSwitch() {
-                        OnItemSelectedListener listener = mSpinnerDest.getOnItemSelectedListener();
-                        mSpinnerDest.setOnItemSelectedListener(null);
-                        mSpinnerDest.setSelection(mPresenter.getDestLanguageIndex());
-                        mSpinnerDest.setOnItemSelectedListener(listener);
-                        listener = mSpinnerSource.getOnItemSelectedListener();
-                        mSpinnerSource.setOnItemSelectedListener(null);
-                        mSpinnerSource.setSelection(mPresenter.getSourceLanguageIndex());
-                        mSpinnerSource.setOnItemSelectedListener(listener);
+                        setSelectionSilently(mSpinnerDest, mPresenter.getDestLanguageIndex());
+                        setSelectionSilently(mSpinnerSource, mPresenter.getSourceLanguageIndex());
                         mSpinnerDest.setEnabled(true);
                         mSpinnerSource.setEnabled(true);
                     }
@@ -625,26 +796,91 @@ public class MainActivity extends AppCompatActivity {
      *
      * @param result result object returned from server
      */
+    @Override
     public void onLookupResult(Result result) {
-        List<TranslationEx> translations = result.translations;
-        mInput.setText(result.text);
+        setInputText(result.text);
         mInput.clearFocus();
         if (!TextUtils.isEmpty(result.transcription)) {
             mTranscription.setText(String.format("[%s]", result.transcription));
         } else {
             mTranscription.setText("");
         }
-        mRecyclerViewAdapter.setData(translations);
+        mRecyclerViewAdapter.setData(result);
         mRecyclerView.scrollToPosition(0);
         if (mRecyclerView.getVisibility() != View.VISIBLE) {
             mRecyclerView.setVisibility(View.VISIBLE);
         }
         hideProgressBar();
-        if (prefs.showShareFab() && mShareFab.getVisibility() != View.VISIBLE) {
+        if (prefs.getSettings().showShareFab && mShareFab.getVisibility() != View.VISIBLE) {
             showShareFab();
         }
     }
 
+    /**
+     * Called from {@link MainPresenter} when lookup into one of the favorite languages completed.
+     *
+     * @param position section position
+     * @param target   destination language
+     * @param result   result object returned from server
+     * @param reset    whether this is the first section of a new lookup
+     */
+    @Override
+    public void onSectionResult(int position, Language target, Result result, boolean reset) {
+        if (reset) {
+            setInputText(result.text);
+            mInput.clearFocus();
+            if (!TextUtils.isEmpty(result.transcription)) {
+                mTranscription.setText(String.format("[%s]", result.transcription));
+            } else {
+                mTranscription.setText("");
+            }
+            mRecyclerView.scrollToPosition(0);
+        }
+        mRecyclerViewAdapter.setSection(position, target.getName(), result, reset);
+        if (mRecyclerView.getVisibility() != View.VISIBLE) {
+            mRecyclerView.setVisibility(View.VISIBLE);
+        }
+        hideProgressBar();
+        if (prefs.getSettings().showShareFab && mShareFab.getVisibility() != View.VISIBLE) {
+            showShareFab();
+        }
+    }
+
+    /**
+     * Called from {@link MainPresenter} when saved lookups matching the query were found.
+     *
+     * @param hits list of found lookups
+     */
+    @Override
+    public void onStoredSearchResult(List<TranslationIndex.Hit> hits) {
+        hideProgressBar();
+        showStoredSearchDialog(hits);
+    }
+
+    /**
+     * Called from {@link MainPresenter} when lookup returned no results, but there are similar
+     * stored words.
+     *
+     * @param suggestions list of corrections, best first
+     */
+    @Override
+    public void onSuggestions(List<SpellingCorrector.Suggestion> suggestions) {
+        hideProgressBar();
+        showSuggestionsDialog(suggestions);
+    }
+
+    /**
+     * Called from {@link MainPresenter} when lookup returned no results and the best correction
+     * is being shown instead.
+     *
+     * @param suggestion correction
+     */
+    @Override
+    public void onAutoCorrected(SpellingCorrector.Suggestion suggestion) {
+        Snackbar.make(mInput, getString(R.string.msg_corrected, suggestion.key.text),
+                Snackbar.LENGTH_LONG).show();
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // Errors
     ///////////////////////////////////////////////////////////////////////////
@@ -653,13 +889,33 @@ public class MainActivity extends AppCompatActivity {
      * Called when error occured. Typically it's related to server or connection problems/wrong
      * request.
      *
-     * @param messaage text to show
+     * @param error one of {@code MainView.ERROR_*} constants
      */
-    public void onError(String messaage) {
-        if (messaage == null) {
-            messaage = getString(R.string.error);
+    @Override
+    public void onError(int error) {
+        switch (error) {
+            case ERROR_NO_CONNECTION:
+                showError(getString(R.string.error_no_connection));
+                break;
+            case ERROR_LANG_NOT_SUPPORTED:
+                showError(getString(R.string.error_lang_not_supported));
+                break;
+            case ERROR_LONG_REQUEST:
+                showError(getString(R.string.error_long_request));
+                break;
+            case ERROR_NO_RESULTS:
+                showError(getString(R.string.error_no_results));
+                break;
+            default:
+                showError(getString(R.string.error));
         }
-        Snackbar snackbar = Snackbar.make(mInput, messaage, Snackbar.LENGTH_LONG);
+    }
+
+    /**
+     * @param message text to show
+     */
+    private void showError(String message) {
+        Snackbar snackbar = Snackbar.make(mInput, message, Snackbar.LENGTH_LONG);
         snackbar.setAction(android.R.string.ok, new View.OnClickListener() {
             @Override
             public void onClick(View v) {
@@ -673,13 +929,15 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Show error when no results were received.
      */
+    @Override
     public void onEmptyResult() {
-        onError(getString(R.string.error_no_results));
+        showError(getString(R.string.error_no_results));
     }
 
     /**
      * If error was occured while fetching languages.
      */
+    @Override
     public void onLanguagesError() {
         setControlsState(false);
         Snackbar snackbar = Snackbar.make(mRoot, R.string.error_langs, Snackbar.LENGTH_INDEFINITE);
@@ -696,6 +954,28 @@ public class MainActivity extends AppCompatActivity {
     // Utility
     ///////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Log time passed from application start to the first frame of this activity.
+     */
+    private void reportStartupTime() {
+        sStartupReported = true;
+        final ViewTreeObserver vto = getWindow().getDecorView().getViewTreeObserver();
+        vto.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                getWindow().getDecorView().getViewTreeObserver().removeOnPreDrawListener(this);
+                long time = SystemClock.uptimeMillis() - App.startTime();
+                if (time > COLD_START_BUDGET) {
+                    Log.w("MainActivity", "cold start: " + time + "ms, exceeds budget of " +
+                            COLD_START_BUDGET + "ms");
+                } else {
+                    Log.d("MainActivity", "cold start: " + time + "ms");
+                }
+                return true;
+            }
+        });
+    }
+
     /**
      * Reset translations applied by {@link HidingViewBehavior}.
      */
@@ -18,9 +18,9 @@ package com.italankin.dictionary.ui.main;
 import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.PopupMenu;
 import android.support.v7.widget.RecyclerView;
-import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -29,10 +29,18 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.italankin.dictionary.R;
-import com.italankin.dictionary.dto.TranslationEx;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.TranslationView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
 
 /**
  * Adapter class for displaying translations in {@link MainActivity}
@@ -41,28 +49,124 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private static final int TYPE_ITEM = 0;
     private static final int TYPE_SPACE = 1;
+    private static final int TYPE_HEADER = 2;
 
     private final LayoutInflater mInflater;
-    private final List<TranslationEx> mDataset = new ArrayList<>(0);
+    private final List<TranslationRow> mDataset = new ArrayList<>(0);
+    /**
+     * Result, which is currently displayed
+     */
+    private Result mResult;
+    /**
+     * Sections of multi-target lookup, which are currently displayed, sorted by position
+     */
+    private final List<TranslationRow.Section> mSections = new ArrayList<>(0);
 
     private boolean mShowExtraSpace = false;
     private OnAdapterItemClickListener mListener;
 
+    /**
+     * Pending dataset update, which rows and diff are being calculated in background
+     */
+    private Subscription mUpdateSub;
+
     public TranslationAdapter(Context context) {
         mInflater = LayoutInflater.from(context);
     }
 
     /**
-     * Update adapter dataset with new items.
+     * Update adapter dataset with translations of the new result. Display-ready rows and difference
+     * between the current and the new dataset are calculated in background, only changed items
+     * will be rebound.
+     *
+     * @param result new result
+     */
+    public void setData(@NonNull final Result result) {
+        mSections.clear();
+        update(result, new Callable<List<TranslationRow>>() {
+            @Override
+            public List<TranslationRow> call() throws Exception {
+                return TranslationRow.from(result);
+            }
+        });
+    }
+
+    /**
+     * Add or replace a section of multi-target lookup. Sections are displayed in order of their
+     * positions, each one is preceded by a header.
      *
-     * @param data new items of list
+     * @param position section position
+     * @param title    section header text
+     * @param result   section result
+     * @param reset    {@code true} to remove all other sections
      */
-    public void setData(@NonNull List<TranslationEx> data) {
-        int size = mDataset.size();
-        mDataset.clear();
-        notifyItemRangeRemoved(0, size);
-        mDataset.addAll(data);
-        notifyItemRangeInserted(0, mDataset.size());
+    public void setSection(int position, @NonNull CharSequence title, @NonNull Result result, boolean reset) {
+        if (reset) {
+            mSections.clear();
+        }
+        int index = 0;
+        while (index < mSections.size() && mSections.get(index).position < position) {
+            index++;
+        }
+        TranslationRow.Section section = new TranslationRow.Section(position, title, result);
+        if (index < mSections.size() && mSections.get(index).position == position) {
+            mSections.set(index, section);
+        } else {
+            mSections.add(index, section);
+        }
+        final List<TranslationRow.Section> sections = new ArrayList<>(mSections);
+        update(mSections.get(0).result, new Callable<List<TranslationRow>>() {
+            @Override
+            public List<TranslationRow> call() throws Exception {
+                return TranslationRow.fromSections(sections);
+            }
+        });
+    }
+
+    private void update(final Result result, final Callable<List<TranslationRow>> rows) {
+        cancelUpdates();
+        final List<TranslationRow> oldList = new ArrayList<>(mDataset);
+        mUpdateSub = Observable
+                .fromCallable(new Callable<Update>() {
+                    @Override
+                    public Update call() throws Exception {
+                        List<TranslationRow> newList = rows.call();
+                        if (oldList.isEmpty() || newList.isEmpty()) {
+                            // nothing to compare with
+                            return new Update(newList, null);
+                        }
+                        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new TranslationDiffCallback(oldList, newList));
+                        return new Update(newList, diff);
+                    }
+                })
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Action1<Update>() {
+                    @Override
+                    public void call(Update update) {
+                        mUpdateSub = null;
+                        mResult = result;
+                        int size = mDataset.size();
+                        mDataset.clear();
+                        mDataset.addAll(update.rows);
+                        if (update.diff != null) {
+                            update.diff.dispatchUpdatesTo(TranslationAdapter.this);
+                        } else {
+                            notifyItemRangeRemoved(0, size);
+                            notifyItemRangeInserted(0, mDataset.size());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Cancel pending dataset update, if any.
+     */
+    public void cancelUpdates() {
+        if (mUpdateSub != null && !mUpdateSub.isUnsubscribed()) {
+            mUpdateSub.unsubscribe();
+        }
+        mUpdateSub = null;
     }
 
     public void showExtraSpace(boolean show) {
@@ -91,6 +195,9 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             View v = mInflater.inflate(R.layout.item_attribute, parent, false);
             return new ItemViewHolder(v);
         }
+        if (viewType == TYPE_HEADER) {
+            return new HeaderViewHolder(mInflater.inflate(R.layout.item_section_header, parent, false));
+        }
         return new SpaceViewHolder(mInflater.inflate(R.layout.item_space, parent, false));
     }
 
@@ -99,21 +206,49 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         if (getItemViewType(position) == TYPE_SPACE) {
             return;
         }
-        ItemViewHolder holder = (ItemViewHolder) viewHolder;
+        TranslationRow item = mDataset.get(position);
+        if (item.header) {
+            ((HeaderViewHolder) viewHolder).title.setText(item.text);
+            return;
+        }
 
-        TranslationEx item = mDataset.get(position);
+        ItemViewHolder holder = (ItemViewHolder) viewHolder;
 
         holder.text.setText(item.text);
-        if (TextUtils.isEmpty(item.pos)) {
+        if (item.pos == null) {
             holder.pos.setVisibility(View.GONE);
         } else {
-            holder.pos.setText(String.format("(%s)", item.pos));
+            holder.pos.setText(item.pos);
             holder.pos.setVisibility(View.VISIBLE);
         }
         holder.means.setText(item.means);
         holder.syns.setText(item.synonyms);
     }
 
+    /**
+     * @return result, which is currently displayed, or {@code null}
+     */
+    @Nullable
+    public Result getResult() {
+        return mResult;
+    }
+
+    /**
+     * @param position item position
+     * @return result, which translation is displayed at {@code position}
+     */
+    public Result getItemResult(int position) {
+        return mDataset.get(position).result;
+    }
+
+    /**
+     * @param position item position
+     * @return item currently displayed at {@code position}
+     */
+    public TranslationView getItem(int position) {
+        return mDataset.get(position).source;
+    }
+
     @Override
     public int getItemCount() {
         return mDataset.size() + (mShowExtraSpace ? 1 : 0);
@@ -124,7 +259,7 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         if (mShowExtraSpace && position == mDataset.size()) {
             return TYPE_SPACE;
         }
-        return TYPE_ITEM;
+        return mDataset.get(position).header ? TYPE_HEADER : TYPE_ITEM;
     }
 
     @Override
@@ -132,7 +267,21 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         if (getItemViewType(position) == TYPE_SPACE) {
             return Long.MAX_VALUE;
         }
-        return mDataset.get(position).hashCode();
+        return mDataset.get(position).id;
+    }
+
+    /**
+     * Result of background dataset update calculation.
+     */
+    private static class Update {
+        final List<TranslationRow> rows;
+        @Nullable
+        final DiffUtil.DiffResult diff;
+
+        Update(List<TranslationRow> rows, @Nullable DiffUtil.DiffResult diff) {
+            this.rows = rows;
+            this.diff = diff;
+        }
     }
 
     /**
@@ -161,6 +310,15 @@ class TranslationAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         }
     }
 
+    public static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        public TextView title;
+
+        public HeaderViewHolder(View itemView) {
+            super(itemView);
+            title = (TextView) itemView.findViewById(R.id.title);
+        }
+    }
+
     public class ItemViewHolder extends RecyclerView.ViewHolder {
         public TextView text;
         public TextView means;
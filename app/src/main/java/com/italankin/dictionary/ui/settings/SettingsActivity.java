@@ -17,17 +17,33 @@ package com.italankin.dictionary.ui.settings;
 
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
+import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.view.View;
+import android.widget.Toast;
 
+import com.italankin.dictionary.App;
+import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.R;
+import com.italankin.dictionary.utils.LookupStore;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
+import rx.Observable;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
 
 /**
  * Activity for displaying and manipulating user preferences.
@@ -37,6 +53,11 @@ public class SettingsActivity extends AppCompatActivity implements SettingsRootF
     public static final String TAG_ROOT = "root";
     public static final String TAG_SEARCH_OPTIONS = "search_options";
 
+    private static final int REQUEST_CODE_IMPORT_PACK = 1;
+
+    @Inject
+    LookupStore store;
+
     @BindView(R.id.toolbar)
     Toolbar toolbar;
 
@@ -49,6 +70,7 @@ public class SettingsActivity extends AppCompatActivity implements SettingsRootF
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        App.injector().inject(this);
         setContentView(R.layout.activity_settings);
         ButterKnife.bind(this);
 
@@ -86,4 +108,70 @@ public class SettingsActivity extends AppCompatActivity implements SettingsRootF
         t.commit();
     }
 
+    @Override
+    public void onImportPackClick() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("*/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        try {
+            startActivityForResult(Intent.createChooser(intent, getString(R.string.pref_import_pack)),
+                    REQUEST_CODE_IMPORT_PACK);
+        } catch (ActivityNotFoundException e) {
+            Toast.makeText(this, R.string.error_no_file_manager, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == REQUEST_CODE_IMPORT_PACK && resultCode == RESULT_OK &&
+                data != null && data.getData() != null) {
+            Toast.makeText(this, R.string.msg_pack_importing, Toast.LENGTH_SHORT).show();
+            importPack(getApplicationContext(), store, data.getData());
+        }
+    }
+
+    /**
+     * Import word pack in background. Import is not bound to the activity lifecycle, so it is
+     * not interrupted if user leaves the screen.
+     *
+     * @param context application context
+     * @param store   store to import results to
+     * @param uri     pack location
+     */
+    private static void importPack(final Context context, final LookupStore store, final Uri uri) {
+        Observable
+                .fromCallable(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        InputStream in = context.getContentResolver().openInputStream(uri);
+                        if (in == null) {
+                            throw new FileNotFoundException(uri.toString());
+                        }
+                        return store.importPack(in);
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(
+                        new Action1<Integer>() {
+                            @Override
+                            public void call(Integer count) {
+                                String message = context.getResources().getQuantityString(
+                                        R.plurals.msg_pack_imported, count, count);
+                                Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
+                            }
+                        },
+                        new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                if (BuildConfig.DEBUG) {
+                                    throwable.printStackTrace();
+                                }
+                                Toast.makeText(context, R.string.error_pack_import, Toast.LENGTH_SHORT).show();
+                            }
+                        }
+                );
+    }
+
 }
@@ -79,12 +79,17 @@ public class SettingsRootFragment extends PreferenceFragment {
         } else if (key.equals("search_filters")) {
             mCallbacks.onSearchFiltersClick();
             return true;
+        } else if (key.equals("import_pack")) {
+            mCallbacks.onImportPackClick();
+            return true;
         }
         return super.onPreferenceTreeClick(preferenceScreen, preference);
     }
 
     public interface Callbacks {
         void onSearchFiltersClick();
+
+        void onImportPackClick();
     }
 
 }
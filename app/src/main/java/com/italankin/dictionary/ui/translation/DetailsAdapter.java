@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.translation;
+
+import android.content.Context;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.italankin.dictionary.R;
+import com.italankin.dictionary.dto.TranslationView;
+
+/**
+ * Sectioned adapter for displaying translation details in {@link TranslationActivity}: header,
+ * followed by means, synonyms and examples sections. Positions are mapped to items arithmetically,
+ * so creating adapter does not depend on the number of attributes.
+ */
+class DetailsAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_SECTION = 1;
+    private static final int TYPE_ITEM = 2;
+
+    private static final int SECTION_MEANS = 0;
+    private static final int SECTION_SYNONYMS = 1;
+    private static final int SECTION_EXAMPLES = 2;
+    private static final int SECTION_COUNT = 3;
+
+    private final LayoutInflater mInflater;
+    private final TranslationView mData;
+    private final View.OnClickListener mClickListener;
+    private final View.OnLongClickListener mLongClickListener;
+
+    /**
+     * Number of items in sections
+     */
+    private final int[] mSizes = new int[SECTION_COUNT];
+    /**
+     * Titles of sections
+     */
+    private final String[] mTitles = new String[SECTION_COUNT];
+    /**
+     * Background colors of sections
+     */
+    private final int[] mColors = new int[SECTION_COUNT];
+    /**
+     * Adapter position of every section title, {@code -1} for empty sections
+     */
+    private final int[] mOffsets = new int[SECTION_COUNT];
+
+    private final int mCount;
+
+    DetailsAdapter(Context context, TranslationView data, View.OnClickListener clickListener,
+            View.OnLongClickListener longClickListener) {
+        mInflater = LayoutInflater.from(context);
+        mData = data;
+        mClickListener = clickListener;
+        mLongClickListener = longClickListener;
+
+        mSizes[SECTION_MEANS] = data.getMeanCount();
+        mTitles[SECTION_MEANS] = context.getString(R.string.means);
+        mColors[SECTION_MEANS] = ContextCompat.getColor(context, R.color.purple);
+        mSizes[SECTION_SYNONYMS] = data.getSynonymCount();
+        mTitles[SECTION_SYNONYMS] = context.getString(R.string.synonyms);
+        mColors[SECTION_SYNONYMS] = ContextCompat.getColor(context, R.color.cyan);
+        mSizes[SECTION_EXAMPLES] = data.getExampleCount();
+        mTitles[SECTION_EXAMPLES] = context.getString(R.string.examples);
+        mColors[SECTION_EXAMPLES] = ContextCompat.getColor(context, R.color.blue);
+
+        int count = 1; // header
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (mSizes[i] > 0) {
+                mOffsets[i] = count;
+                count += mSizes[i] + 1;
+            } else {
+                mOffsets[i] = -1;
+            }
+        }
+        mCount = count;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        switch (viewType) {
+            case TYPE_HEADER:
+                return new HeaderViewHolder(mInflater.inflate(R.layout.item_details_header, parent, false));
+            case TYPE_SECTION:
+                return new SectionViewHolder(mInflater.inflate(R.layout.item_details_section, parent, false));
+            default:
+                return new ItemViewHolder(mInflater.inflate(R.layout.item_details_text, parent, false));
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder viewHolder, int position) {
+        if (position == 0) {
+            HeaderViewHolder holder = (HeaderViewHolder) viewHolder;
+            holder.text.setText(mData.getText());
+            holder.pos.setText(mData.getPos());
+            return;
+        }
+        int section = sectionOf(position);
+        int index = position - mOffsets[section] - 1;
+        if (index < 0) {
+            SectionViewHolder holder = (SectionViewHolder) viewHolder;
+            holder.title.setText(mTitles[section]);
+            holder.title.setBackgroundColor(mColors[section]);
+        } else {
+            ItemViewHolder holder = (ItemViewHolder) viewHolder;
+            holder.itemView.setBackgroundColor(mColors[section]);
+            holder.text.setText(getText(section, index));
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return mCount;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (position == 0) {
+            return TYPE_HEADER;
+        }
+        int section = sectionOf(position);
+        return position == mOffsets[section] ? TYPE_SECTION : TYPE_ITEM;
+    }
+
+    private String getText(int section, int index) {
+        switch (section) {
+            case SECTION_MEANS:
+                return mData.getMean(index);
+            case SECTION_SYNONYMS:
+                return mData.getSynonym(index);
+            default:
+                return mData.getExample(index);
+        }
+    }
+
+    /**
+     * @param position adapter position (excluding header)
+     * @return index of the section, containing {@code position}
+     */
+    private int sectionOf(int position) {
+        int section = 0;
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            if (mOffsets[i] != -1 && mOffsets[i] <= position) {
+                section = i;
+            }
+        }
+        return section;
+    }
+
+    private class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+        final TextView pos;
+
+        HeaderViewHolder(View v) {
+            super(v);
+            text = (TextView) v.findViewById(R.id.text_translation);
+            pos = (TextView) v.findViewById(R.id.text_position);
+            text.setOnClickListener(mClickListener);
+            text.setOnLongClickListener(mLongClickListener);
+        }
+    }
+
+    private static class SectionViewHolder extends RecyclerView.ViewHolder {
+        final TextView title;
+
+        SectionViewHolder(View v) {
+            super(v);
+            title = (TextView) v;
+        }
+    }
+
+    private class ItemViewHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        ItemViewHolder(View v) {
+            super(v);
+            text = (TextView) v.findViewById(R.id.text);
+            text.setOnClickListener(mClickListener);
+            text.setOnLongClickListener(mLongClickListener);
+        }
+    }
+
+}
@@ -20,68 +20,84 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.support.v4.app.ShareCompat;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
-import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.italankin.dictionary.App;
+import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.R;
-import com.italankin.dictionary.dto.Attribute;
-import com.italankin.dictionary.dto.TranslationEx;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.ParcelableLookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.TranslationView;
 import com.italankin.dictionary.ui.main.MainActivity;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.ResultRegistry;
+
+import java.util.List;
+
+import javax.inject.Inject;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
+import rx.Observer;
+import rx.Subscription;
+import rx.android.schedulers.AndroidSchedulers;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 
 /**
  * Activity is displaying single translation item in the more detailed form.
  */
 public class TranslationActivity extends AppCompatActivity implements View.OnClickListener, View.OnLongClickListener {
 
-    private static final String EXTRA_DATA = "data";
+    private static final String EXTRA_KEY = "key";
+    private static final String EXTRA_INDEX = "index";
+
+    @Inject
+    ResultRegistry registry;
 
-    private TranslationEx mData;
+    @Inject
+    LookupStore store;
+
+    private TranslationView mData;
+    private Subscription mLoadSub;
 
     //region Views
     @BindView(R.id.toolbar)
     Toolbar toolbar;
 
-    @BindView(R.id.text_translation)
-    TextView textTrans;
-
-    @BindView(R.id.text_position)
-    TextView textPos;
-
-    @BindView(R.id.card_means)
-    View layoutMeans;
-
-    @BindView(R.id.card_synonyms)
-    View layoutSynonyms;
-
-    @BindView(R.id.card_examples)
-    View layoutExamples;
+    @BindView(R.id.recycler_view)
+    RecyclerView recyclerView;
     //endregion
 
-    public static Intent getStartIntent(Context context, TranslationEx data) {
+    /**
+     * Create intent for displaying translation. The result should be registered in
+     * {@link ResultRegistry}, otherwise it will be loaded from {@link LookupStore}.
+     *
+     * @param context context
+     * @param key     key of the result
+     * @param index   index of the translation in the result
+     * @return intent
+     */
+    public static Intent getStartIntent(Context context, LookupKey key, int index) {
         Intent starter = new Intent(context, TranslationActivity.class);
-        starter.putExtra(EXTRA_DATA, data);
+        starter.putExtra(EXTRA_KEY, new ParcelableLookupKey(key));
+        starter.putExtra(EXTRA_INDEX, index);
         return starter;
     }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-
-        if (getIntent() != null) {
-            mData = getIntent().getParcelableExtra(EXTRA_DATA);
-        } else if (savedInstanceState != null) {
-            mData = savedInstanceState.getParcelable(EXTRA_DATA);
-        }
+        App.injector().inject(this);
 
         setContentView(R.layout.activity_translation);
         ButterKnife.bind(this);
@@ -95,58 +111,72 @@ public class TranslationActivity extends AppCompatActivity implements View.OnCli
             }
         });
 
-        // translation text
-        textTrans.setText(mData.text);
-        textTrans.setOnClickListener(this);
-        textTrans.setOnLongClickListener(this);
-
-        // speech position text
-        textPos.setText(mData.pos);
-
-        // process means array, if we got one
-        if (mData.mean != null && mData.mean.length > 0) {
-            layoutMeans.setVisibility(View.VISIBLE);
-            LinearLayout listMeans = (LinearLayout) findViewById(R.id.layout_means);
-            addViewsForAttributes(listMeans, mData.mean);
-        }
-
-        // process synonyms array
-        if (mData.syn != null && mData.syn.length > 0) {
-            layoutSynonyms.setVisibility(View.VISIBLE);
-            LinearLayout listSynonyms = (LinearLayout) findViewById(R.id.layout_synonyms);
-            addViewsForAttributes(listSynonyms, mData.syn);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+
+        final LookupKey key = getIntent().<ParcelableLookupKey>getParcelableExtra(EXTRA_KEY).key;
+        final int index = getIntent().getIntExtra(EXTRA_INDEX, 0);
+        Result result = registry.get(key);
+        if (result != null) {
+            showTranslation(result, index);
+        } else {
+            // process was probably killed, load result from disk
+            mLoadSub = store.get(key)
+                    .map(new Func1<List<Definition>, Result>() {
+                        @Override
+                        public Result call(List<Definition> definitions) {
+                            Result result = new Result(key, definitions);
+                            registry.put(result);
+                            return result;
+                        }
+                    })
+                    .subscribeOn(Schedulers.io())
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(new Observer<Result>() {
+                        @Override
+                        public void onNext(Result result) {
+                            showTranslation(result, index);
+                        }
+
+                        @Override
+                        public void onError(Throwable e) {
+                            if (BuildConfig.DEBUG) {
+                                e.printStackTrace();
+                            }
+                            finish();
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                            if (mData == null) {
+                                finish();
+                            }
+                        }
+                    });
         }
+    }
 
-        // process examples array
-        if (mData.ex != null && mData.ex.length > 0) {
-            layoutExamples.setVisibility(View.VISIBLE);
-            LinearLayout listExamples = (LinearLayout) findViewById(R.id.layout_examples);
-            addViewsForAttributes(listExamples, mData.ex);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mLoadSub != null && !mLoadSub.isUnsubscribed()) {
+            mLoadSub.unsubscribe();
         }
     }
 
     /**
-     * Add separate view for every attribute in array.
+     * Display translation details.
      *
-     * @param parent     a parent view group to which views will be added
-     * @param attributes array of attributes
+     * @param result result containing translation
+     * @param index  index of the translation
      */
-    private void addViewsForAttributes(ViewGroup parent, Attribute[] attributes) {
-        LayoutInflater inflater = getLayoutInflater();
-        TextView view;
-        for (Attribute a : attributes) {
-            view = (TextView) inflater.inflate(R.layout.item_translation_text, parent, false);
-            view.setText(a.text);
-            view.setOnClickListener(this);
-            view.setOnLongClickListener(this);
-            parent.addView(view);
+    private void showTranslation(Result result, int index) {
+        if (index < 0 || index >= result.getTranslationCount()) {
+            finish();
+            return;
         }
-    }
-
-    @Override
-    protected void onSaveInstanceState(Bundle outState) {
-        super.onSaveInstanceState(outState);
-        outState.putParcelable(EXTRA_DATA, mData);
+        mData = result.getTranslation(index);
+        recyclerView.setAdapter(new DetailsAdapter(this, mData, this, this));
     }
 
     @Override
@@ -159,14 +189,17 @@ public class TranslationActivity extends AppCompatActivity implements View.OnCli
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId()) {
             case R.id.action_share:
-                String text = mData.means + "\n" +
-                        mData.synonyms + "\n" +
-                        mData.examples;
+                if (mData == null) {
+                    return true;
+                }
+                String text = mData.getMeans() + "\n" +
+                        mData.getSynonyms() + "\n" +
+                        mData.getExamples();
                 Intent intent = ShareCompat.IntentBuilder
                         .from(this)
                         .setType("text/plain")
                         .setText(text)
-                        .setSubject(mData.text)
+                        .setSubject(mData.getText())
                         .getIntent();
                 if (intent.resolveActivity(getPackageManager()) != null) {
                     startActivity(intent);
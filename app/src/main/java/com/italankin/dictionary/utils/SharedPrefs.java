@@ -26,35 +26,47 @@ import com.italankin.dictionary.BuildConfig;
 import com.italankin.dictionary.api.ApiClient;
 import com.italankin.dictionary.dto.Language;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import rx.Observable;
-import rx.Observer;
+import rx.Scheduler;
 import rx.Subscription;
 import rx.functions.Action0;
 import rx.functions.Action1;
-import rx.functions.Func1;
+import rx.functions.Func0;
 import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
 
 /**
  * Wrapper around {@link SharedPreferences} for this application purposes.
  */
-public class SharedPrefs {
+public class SharedPrefs implements Preferences {
 
     private static final String LANGS_FILE_NAME = "langs.json";
+    /**
+     * Delay of the deferred languages list write, in milliseconds
+     */
+    private static final long FLUSH_DELAY = 2000;
+    private static final String CHARSET = "UTF-8";
     private static final SimpleDateFormat LANGS_TIMESTAMP =
             new SimpleDateFormat("yyyy-MM-dd'T'HH:MM:ssZ", Locale.US);
 
@@ -62,7 +74,11 @@ public class SharedPrefs {
     private static final String PREF_DEST = "dest";
     private static final String PREF_LANGS_LOCALE = "langs_locale";
     private static final String PREF_LANGS_TIMESTAMP = "langs_timestamp";
+    private static final String PREF_FAVORITE_LANGS = "favorite_langs";
     private static final String PREF_LOOKUP_REVERSE = "lookup_reverse";
+    private static final String PREF_AUTO_CORRECT = "auto_correct";
+    private static final String PREF_MULTI_TARGET = "multi_target";
+    private static final String PREF_PREFETCH = "prefetch";
     private static final String PREF_BACK_FOCUS = "back_focus";
     private static final String PREF_CLOSE_ON_SHARE = "close_on_share";
     private static final String PREF_INCLUDE_TRANSCRIPTION = "include_transcription";
@@ -71,17 +87,80 @@ public class SharedPrefs {
     private static final String PREF_FILTER_MORPHO = "filter_morpho";
     private static final String PREF_FILTER_POS_FILTER = "filter_pos_filter";
     private static final String PREF_SHOW_SHARE_FAB = "show_share_fab";
+    private static final String PREF_PREFETCH_SCHEDULED = "prefetch_scheduled";
+
+    /**
+     * Keys of preferences, which are part of {@link Settings}
+     */
+    private static final Set<String> SETTINGS_KEYS = new HashSet<>(Arrays.asList(
+            PREF_LOOKUP_REVERSE, PREF_AUTO_CORRECT, PREF_MULTI_TARGET, PREF_PREFETCH, PREF_BACK_FOCUS,
+            PREF_CLOSE_ON_SHARE, PREF_INCLUDE_TRANSCRIPTION,
+            PREF_FILTER_FAMILY, PREF_FILTER_SHORT_POS, PREF_FILTER_MORPHO, PREF_FILTER_POS_FILTER,
+            PREF_SHOW_SHARE_FAB));
 
     private final SharedPreferences mPreferences;
     private final Context mContext;
     private final Gson mGson = new Gson();
 
-    private Observable<List<Language>> mLanguagesObservable;
-    private Subscription mSaveLanguagesSub;
+    /**
+     * Sequential background worker for deferred writes
+     */
+    private final Scheduler.Worker mWriter = Schedulers.io().createWorker();
+    private final Action0 mFlushAction = new Action0() {
+        @Override
+        public void call() {
+            writePendingLanguages();
+        }
+    };
+    private final Object mWriteLock = new Object();
+    /**
+     * Held for the whole write, so writes of the languages file do not overlap
+     */
+    private final Object mFileLock = new Object();
+    /**
+     * Languages list waiting to be written, guarded by {@link #mWriteLock}
+     */
+    private List<Language> mPendingLanguages;
+    /**
+     * Hash of the last saved or pending languages list, guarded by {@link #mWriteLock}
+     */
+    private int mLanguagesHash;
+    /**
+     * Scheduled write, guarded by {@link #mWriteLock}
+     */
+    private Subscription mFlushSub;
+
+    /**
+     * Current settings snapshot, created on first access
+     */
+    private volatile Settings mSettings;
+    private final BehaviorSubject<Settings> mSettingsSubject = BehaviorSubject.create();
+
+    /**
+     * Listener, which rebuilds {@link #mSettings}. {@link SharedPreferences} keeps only weak
+     * references to listeners, so it is stored in a field.
+     */
+    private final SharedPreferences.OnSharedPreferenceChangeListener mSettingsListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+                    if (SETTINGS_KEYS.contains(key)) {
+                        updateSettings();
+                    }
+                }
+            };
 
     public SharedPrefs(Context context) {
         mContext = context;
         mPreferences = PreferenceManager.getDefaultSharedPreferences(context);
+        mPreferences.registerOnSharedPreferenceChangeListener(mSettingsListener);
+    }
+
+    /**
+     * Force loading of preferences from disk. Should be called from background thread.
+     */
+    public void preload() {
+        getSettings();
     }
 
     ///////////////////////////////////////////////////////////////////////////
@@ -94,10 +173,12 @@ public class SharedPrefs {
         editor.apply();
     }
 
+    @Override
     public void setDestLang(Language lang) {
         setDestLang(lang.getCode());
     }
 
+    @Override
     public String getDestLang() {
         return mPreferences.getString(PREF_DEST, null);
     }
@@ -112,10 +193,12 @@ public class SharedPrefs {
         editor.apply();
     }
 
+    @Override
     public void setSourceLang(Language lang) {
         setSourceLang(lang.getCode());
     }
 
+    @Override
     public String getSourceLang() {
         return mPreferences.getString(PREF_SOURCE, null);
     }
@@ -125,75 +208,138 @@ public class SharedPrefs {
     ///////////////////////////////////////////////////////////////////////////
 
     /**
-     * Save list of languages on disk.
+     * Schedule saving of the languages list on disk. Writes are deferred for
+     * {@link #FLUSH_DELAY} ms, so bursts of saves result in a single write of the latest list.
+     * Lists equal to the saved one are not written at all.
      *
      * @param list list of languages
+     * @see #flush()
      */
+    @Override
     public void saveLanguagesList(List<Language> list) {
         if (list == null) {
             return;
         }
-        if (mSaveLanguagesSub == null || mSaveLanguagesSub.isUnsubscribed()) {
-            mSaveLanguagesSub = Observable.just(new ArrayList<>(list))
-                    .map(new Func1<List<Language>, Boolean>() {
-                        @Override
-                        public Boolean call(List<Language> languages) {
-                            try {
-                                Collections.sort(languages);
-                                File file = getLangsFile();
-                                if (!file.delete() && BuildConfig.DEBUG) {
-                                    Log.d("SharedPrefs", "saveLanguagesList: delete failed");
-                                }
-                                FileOutputStream fs = new FileOutputStream(file);
-                                String json = mGson.toJson(languages);
-                                fs.write(json.getBytes());
-                                fs.close();
-                                String locale = Locale.getDefault().getLanguage();
-                                mPreferences.edit().putString(PREF_LANGS_LOCALE, locale).apply();
-                                return true;
-                            } catch (IOException e) {
-                                return false;
-                            }
-                        }
-                    })
-                    .doOnTerminate(new Action0() {
-                        @Override
-                        public void call() {
-                            mSaveLanguagesSub = null;
-                        }
-                    })
-                    .subscribeOn(Schedulers.io())
-                    .subscribe(new Observer<Boolean>() {
-                        @Override
-                        public void onNext(Boolean value) {
-                            if (BuildConfig.DEBUG) {
-                                Log.d("SharedPrefs", "saveLanguagesList: " + value);
-                            }
-                        }
+        int hash = hashOf(list);
+        synchronized (mWriteLock) {
+            if (hash == mLanguagesHash) {
+                return;
+            }
+            mLanguagesHash = hash;
+            mPendingLanguages = new ArrayList<>(list);
+            if (mFlushSub == null) {
+                mFlushSub = mWriter.schedule(mFlushAction, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
 
-                        @Override
-                        public void onError(Throwable e) {
-                            if (BuildConfig.DEBUG) {
-                                Log.e("SharedPrefs", "saveLanguagesList: ", e);
-                            }
-                        }
+    /**
+     * Write pending changes on the calling thread, cancelling the deferred write. If the deferred
+     * write is already in progress, waits for it to finish. Should be called when application
+     * goes to background, because the process may be killed at any moment after that.
+     */
+    public void flush() {
+        synchronized (mWriteLock) {
+            if (mFlushSub != null) {
+                mFlushSub.unsubscribe();
+                mFlushSub = null;
+            }
+        }
+        writePendingLanguages();
+    }
 
-                        @Override
-                        public void onCompleted() {
-                        }
-                    });
+    private void writePendingLanguages() {
+        synchronized (mFileLock) {
+            List<Language> languages;
+            synchronized (mWriteLock) {
+                languages = mPendingLanguages;
+                mPendingLanguages = null;
+                mFlushSub = null;
+            }
+            if (languages == null) {
+                return;
+            }
+            boolean written = writeLanguages(languages);
+            if (!written) {
+                synchronized (mWriteLock) {
+                    // make the next save write the list again
+                    mLanguagesHash = 0;
+                }
+            }
+            if (BuildConfig.DEBUG) {
+                Log.d("SharedPrefs", "writePendingLanguages: " + written);
+            }
+        }
+    }
+
+    private boolean writeLanguages(List<Language> languages) {
+        File file = getLangsFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fs = null;
+        try {
+            fs = new FileOutputStream(tmp);
+            String json = mGson.toJson(languages);
+            fs.write(PayloadCodec.encode(json.getBytes(CHARSET)));
+            fs.close();
+            fs = null;
+            if (!tmp.renameTo(file)) {
+                return false;
+            }
+            String locale = Locale.getDefault().getLanguage();
+            mPreferences.edit().putString(PREF_LANGS_LOCALE, locale).apply();
+            return true;
+        } catch (IOException e) {
+            if (BuildConfig.DEBUG) {
+                Log.e("SharedPrefs", "writeLanguages: ", e);
+            }
+            return false;
+        } finally {
+            if (fs != null) {
+                try {
+                    fs.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
         }
     }
 
+    /**
+     * @return hash of the list contents, favorite flags are not included
+     */
+    private static int hashOf(List<Language> list) {
+        int hash = 1;
+        for (Language l : list) {
+            hash = 31 * hash + l.getCode().hashCode();
+            hash = 31 * hash + l.getName().hashCode();
+        }
+        return hash;
+    }
+
+    @Override
     public Observable<List<Language>> getLanguagesList() {
         return Observable
                 .fromCallable(new Callable<List<Language>>() {
                     @Override
                     public List<Language> call() throws Exception {
                         File file = getLangsFile();
-                        FileReader fs = new FileReader(file);
+                        FileInputStream fs = new FileInputStream(file);
+                        byte[] data;
+                        try {
+                            data = PayloadCodec.decode(fs);
+                        } finally {
+                            fs.close();
+                        }
+                        Reader reader = new InputStreamReader(new ByteArrayInputStream(data), CHARSET);
                         Type collectionType = new TypeToken<List<Language>>() {}.getType();
-                        return mGson.fromJson(fs, collectionType);
+                        List<Language> languages = mGson.fromJson(reader, collectionType);
+                        synchronized (mWriteLock) {
+                            if (languages != null && mPendingLanguages == null) {
+                                // list on disk is up to date
+                                mLanguagesHash = hashOf(languages);
+                            }
+                        }
+                        return languages;
                     }
                 })
                 .doOnError(new Action1<Throwable>() {
@@ -205,11 +351,13 @@ public class SharedPrefs {
                 });
     }
 
+    @Override
     public void setLangsTimestamp(Date date) {
         String timestamp = LANGS_TIMESTAMP.format(date);
         mPreferences.edit().putString(PREF_LANGS_TIMESTAMP, timestamp).apply();
     }
 
+    @Override
     public boolean shouldUpdateLangs() {
         boolean updatedLastTwoWeeks = false;
         if (mPreferences.contains(PREF_LANGS_TIMESTAMP)) {
@@ -233,8 +381,13 @@ public class SharedPrefs {
     }
 
     public void purgeLanguages() {
-        if (mSaveLanguagesSub != null && !mSaveLanguagesSub.isUnsubscribed()) {
-            mSaveLanguagesSub.unsubscribe();
+        synchronized (mWriteLock) {
+            if (mFlushSub != null) {
+                mFlushSub.unsubscribe();
+                mFlushSub = null;
+            }
+            mPendingLanguages = null;
+            mLanguagesHash = 0;
         }
         File file = getLangsFile();
         if (file.exists()) {
@@ -246,34 +399,101 @@ public class SharedPrefs {
     }
 
     ///////////////////////////////////////////////////////////////////////////
-    // Other
+    // Favorite languages
     ///////////////////////////////////////////////////////////////////////////
 
-    public boolean showShareFab() {
-        return mPreferences.getBoolean(PREF_SHOW_SHARE_FAB, true);
+    @Override
+    public Set<String> getFavoriteLangs() {
+        Set<String> codes = mPreferences.getStringSet(PREF_FAVORITE_LANGS, null);
+        // returned set must not be modified
+        return codes != null ? new HashSet<>(codes) : null;
     }
 
-    public boolean lookupReverse() {
-        return mPreferences.getBoolean(PREF_LOOKUP_REVERSE, true);
+    /**
+     * Save favorite languages. Favorites are stored separately from the languages list, so
+     * toggling a favorite does not rewrite the list.
+     *
+     * @param codes codes of favorite languages
+     */
+    @Override
+    public void setFavoriteLangs(Set<String> codes) {
+        mPreferences.edit().putStringSet(PREF_FAVORITE_LANGS, new HashSet<>(codes)).apply();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Prefetch
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return {@code true}, if periodic prefetch was scheduled
+     */
+    public boolean isPrefetchScheduled() {
+        return mPreferences.getBoolean(PREF_PREFETCH_SCHEDULED, false);
+    }
+
+    public void setPrefetchScheduled() {
+        mPreferences.edit().putBoolean(PREF_PREFETCH_SCHEDULED, true).apply();
     }
 
-    public boolean backFocusSearch() {
-        return mPreferences.getBoolean(PREF_BACK_FOCUS, false);
+    ///////////////////////////////////////////////////////////////////////////
+    // Settings
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return current settings snapshot
+     */
+    @Override
+    public Settings getSettings() {
+        Settings settings = mSettings;
+        if (settings == null) {
+            synchronized (this) {
+                settings = mSettings;
+                if (settings == null) {
+                    settings = updateSettings();
+                }
+            }
+        }
+        return settings;
     }
 
-    public boolean closeOnShare() {
-        return mPreferences.getBoolean(PREF_CLOSE_ON_SHARE, false);
+    /**
+     * @return {@link Observable} emitting current settings snapshot and new snapshots on every
+     * settings change
+     */
+    @Override
+    public Observable<Settings> settings() {
+        return Observable.defer(new Func0<Observable<Settings>>() {
+            @Override
+            public Observable<Settings> call() {
+                getSettings();
+                return mSettingsSubject.asObservable();
+            }
+        });
     }
 
-    public boolean shareIncludeTranscription() {
-        return mPreferences.getBoolean(PREF_INCLUDE_TRANSCRIPTION, false);
+    private synchronized Settings updateSettings() {
+        Settings settings = new Settings(
+                readSearchFilter(),
+                mPreferences.getBoolean(PREF_LOOKUP_REVERSE, true),
+                mPreferences.getBoolean(PREF_AUTO_CORRECT, false),
+                mPreferences.getBoolean(PREF_MULTI_TARGET, false),
+                mPreferences.getBoolean(PREF_PREFETCH, true),
+                mPreferences.getBoolean(PREF_BACK_FOCUS, false),
+                mPreferences.getBoolean(PREF_CLOSE_ON_SHARE, false),
+                mPreferences.getBoolean(PREF_INCLUDE_TRANSCRIPTION, false),
+                mPreferences.getBoolean(PREF_SHOW_SHARE_FAB, true));
+        mSettings = settings;
+        mSettingsSubject.onNext(settings);
+        return settings;
     }
 
-    public int getSearchFilter() {
+    @ApiClient.LookupFlags
+    private int readSearchFilter() {
         int family = mPreferences.getBoolean(PREF_FILTER_FAMILY, true) ? ApiClient.FILTER_FAMILY : 0;
         int shortPos = mPreferences.getBoolean(PREF_FILTER_SHORT_POS, false) ? ApiClient.FILTER_SHORT_POS : 0;
         int morpho = mPreferences.getBoolean(PREF_FILTER_MORPHO, false) ? ApiClient.FILTER_MORPHO : 0;
         int pos = mPreferences.getBoolean(PREF_FILTER_POS_FILTER, false) ? ApiClient.FILTER_POS_FILTER : 0;
+        //noinspection WrongConstant
         return family | shortPos | morpho | pos;
     }
 
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.support.annotation.Nullable;
+
+import com.italankin.dictionary.BuildConfig;
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Language;
+import com.italankin.dictionary.prefetch.Prefetcher;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dagger.Lazy;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.schedulers.Schedulers;
+
+/**
+ * Initializes expensive dependencies in background during application start, so they are
+ * ready by the time the first screen needs them. Also reads cached languages list in parallel
+ * with the first activity inflation and loads stored lookups for local search and
+ * autocompletion. Work needed only by the UI is done in {@link #onMainActivityStart()}, because
+ * the process may also be started for the content provider or the boot receiver.
+ */
+public class WarmUp implements Preloader {
+
+    private final Context mContext;
+    private final Lazy<ApiClient> mClient;
+    private final Lazy<OkHttpClient> mHttpClient;
+    private final Lazy<SharedPrefs> mPrefs;
+    private final Lazy<LookupStore> mStore;
+    private final Lazy<Prefetcher> mPrefetcher;
+
+    /**
+     * Cached languages list, shared between warm-up and the first consumer
+     */
+    private final Observable<List<Language>> mLanguages;
+    private final AtomicBoolean mLanguagesTaken = new AtomicBoolean(false);
+    private final AtomicBoolean mActivityStarted = new AtomicBoolean(false);
+
+    public WarmUp(Context context, Lazy<ApiClient> client, Lazy<OkHttpClient> httpClient,
+            Lazy<SharedPrefs> prefs, Lazy<LookupStore> store, Lazy<Prefetcher> prefetcher) {
+        mContext = context;
+        mClient = client;
+        mHttpClient = httpClient;
+        mPrefs = prefs;
+        mStore = store;
+        mPrefetcher = prefetcher;
+        mLanguages = Observable
+                .defer(new Func0<Observable<List<Language>>>() {
+                    @Override
+                    public Observable<List<Language>> call() {
+                        SharedPrefs prefs = mPrefs.get();
+                        if (prefs.shouldUpdateLangs()) {
+                            return Observable.empty();
+                        }
+                        return prefs.getLanguagesList();
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .cache();
+    }
+
+    /**
+     * Start warm-up in background.
+     */
+    public void start() {
+        final long start = System.currentTimeMillis();
+        mLanguages.subscribe(
+                new Action1<List<Language>>() {
+                    @Override
+                    public void call(List<Language> languages) {
+                        Logger.d("WarmUp", "languages: " + (System.currentTimeMillis() - start) + "ms");
+                    }
+                },
+                new Action1<Throwable>() {
+                    @Override
+                    public void call(Throwable throwable) {
+                        // consumer will fallback to other sources
+                    }
+                });
+        runInBackground(new Action0() {
+            @Override
+            public void call() {
+                mPrefs.get().preload();
+                mClient.get();
+                Logger.d("WarmUp", "dependencies: " + (System.currentTimeMillis() - start) + "ms");
+                // stored lookups are not needed for the first frame, load them last
+                mStore.get().preload();
+                Logger.d("WarmUp", "stored lookups: " + (System.currentTimeMillis() - start) + "ms");
+            }
+        });
+    }
+
+    /**
+     * Should be called when the main activity is created. On the first call opens connection
+     * to the API server, if network is available, and schedules prefetch, if it was never
+     * scheduled. Subsequent calls do nothing.
+     */
+    public void onMainActivityStart() {
+        if (!mActivityStarted.compareAndSet(false, true)) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        runInBackground(new Action0() {
+            @Override
+            public void call() {
+                if (isNetworkAvailable()) {
+                    preconnect();
+                    Logger.d("WarmUp", "preconnect: " + (System.currentTimeMillis() - start) + "ms");
+                }
+                mPrefetcher.get().schedule();
+            }
+        });
+    }
+
+    /**
+     * Take cached languages list, loaded during warm-up.
+     */
+    @Nullable
+    @Override
+    public Observable<List<Language>> takeLanguages() {
+        if (mLanguagesTaken.compareAndSet(false, true)) {
+            return mLanguages;
+        }
+        return null;
+    }
+
+    /**
+     * Make a request to the API server, so the connection (and TLS session) will be kept
+     * in the connection pool.
+     */
+    private void preconnect() {
+        Request request = new Request.Builder()
+                .url(BuildConfig.BASE_URL)
+                .head()
+                .build();
+        try {
+            Response response = mHttpClient.get().newCall(request).execute();
+            response.body().close();
+        } catch (IOException e) {
+            Logger.d("WarmUp", "preconnect: " + e);
+        }
+    }
+
+    private boolean isNetworkAvailable() {
+        ConnectivityManager cm = (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo info = cm.getActiveNetworkInfo();
+        return info != null && info.isConnected();
+    }
+
+    private static void runInBackground(final Action0 action) {
+        final Scheduler.Worker worker = Schedulers.io().createWorker();
+        worker.schedule(new Action0() {
+            @Override
+            public void call() {
+                try {
+                    action.call();
+                } finally {
+                    worker.unsubscribe();
+                }
+            }
+        });
+    }
+
+}
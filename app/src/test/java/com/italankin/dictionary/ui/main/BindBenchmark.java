@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.Translation;
+import com.italankin.dictionary.dto.TranslationView;
+import com.italankin.dictionary.utils.LookupStore;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Counts row binds of the translation list for successive similar lookups, as the adapter
+ * does them: rows of {@link TranslationRow#from(Result)} are compared by
+ * {@link TranslationDiffCallback}, inserted and changed rows are bound. Lookups are ordered by
+ * source language and text, so neighbours share prefixes (e.g. {@code house}, {@code houses},
+ * {@code housing}); every lookup is also repeated once.
+ * <pre>
+ * Usage: ./gradlew :app:testDebugUnitTest --tests '*BindBenchmark' -PbindsDir=path/to/lookups
+ * </pre>
+ * Directory is read with {@link LookupStore}, so it should be a copy of the app's storage:
+ * reading results marks them as used.
+ */
+public class BindBenchmark {
+
+    @Test
+    public void storedLookups() {
+        String dir = System.getProperty("binds.dir");
+        Assume.assumeNotNull(dir);
+        LookupStore store = new LookupStore(new File(dir), Integer.MAX_VALUE);
+        List<LookupKey> keys = store.keys();
+        Assume.assumeFalse("No stored lookups in " + dir, keys.isEmpty());
+        Collections.sort(keys, new Comparator<LookupKey>() {
+            @Override
+            public int compare(LookupKey lhs, LookupKey rhs) {
+                int c = lhs.lang.compareTo(rhs.lang);
+                return c != 0 ? c : lhs.text.compareTo(rhs.text);
+            }
+        });
+
+        long rows = 0;
+        long fullBinds = 0;
+        long diffBinds = 0;
+        long repeatBinds = 0;
+        long duplicateIds = 0;
+        List<TranslationRow> previous = null;
+        String previousLang = null;
+        for (LookupKey key : keys) {
+            List<Definition> definitions = store.get(key).toBlocking().firstOrDefault(null);
+            if (definitions == null) {
+                continue;
+            }
+            Result result = new Result(key, definitions);
+            List<TranslationRow> current = TranslationRow.from(result);
+            rows += current.size();
+            duplicateIds += duplicateBaseIds(result);
+            if (previous != null && key.lang.equals(previousLang)) {
+                fullBinds += current.size();
+                diffBinds += binds(previous, current);
+            }
+            // same lookup again, e.g. after rotation or going back in history
+            repeatBinds += binds(current, TranslationRow.from(result));
+            previous = current;
+            previousLang = key.lang;
+        }
+        System.out.printf(Locale.US, "%d lookups, %d rows, %.1f rows on average%n",
+                keys.size(), rows, (double) rows / keys.size());
+        System.out.printf(Locale.US, "successive lookups: %d binds without ids, %d with stable ids (%.1f%%)%n",
+                fullBinds, diffBinds, fullBinds == 0 ? 0 : 100.0 * diffBinds / fullBinds);
+        System.out.printf(Locale.US, "repeated lookups:   %d binds with stable ids%n", repeatBinds);
+        System.out.printf(Locale.US, "rows sharing text and part of speech: %d%n", duplicateIds);
+    }
+
+    @Test
+    public void changedRowsAreBound() {
+        Result house = result("house", "дом", "здание", "дом");
+        Result houses = result("houses", "дома", "здание", "дом");
+        assertEquals(0, binds(TranslationRow.from(house), TranslationRow.from(house)));
+        // "дома" is a new row, "здание" and "дом" keep their ids and contents
+        assertEquals(1, binds(TranslationRow.from(house), TranslationRow.from(houses)));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Helpers
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return number of rows, bound after dispatching the difference of {@code previous} and
+     * {@code current} to the adapter
+     */
+    private static int binds(List<TranslationRow> previous, List<TranslationRow> current) {
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new TranslationDiffCallback(previous, current));
+        BindCounter counter = new BindCounter();
+        diff.dispatchUpdatesTo(counter);
+        return counter.binds;
+    }
+
+    /**
+     * @return number of rows, which would get an id already taken by a previous row, if ids
+     * were derived from text and part of speech only
+     */
+    private static int duplicateBaseIds(Result result) {
+        Set<Long> seen = new HashSet<>();
+        int duplicates = 0;
+        for (int i = 0, count = result.getTranslationCount(); i < count; i++) {
+            TranslationView view = result.getTranslation(i);
+            if (!seen.add(RowIds.of(view.getText(), view.getPos()))) {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+
+    private static Result result(String text, String... translations) {
+        Definition definition = new Definition();
+        definition.text = text;
+        definition.pos = "noun";
+        definition.tr = new Translation[translations.length];
+        for (int i = 0; i < translations.length; i++) {
+            Translation translation = new Translation();
+            translation.text = translations[i];
+            translation.pos = "noun";
+            definition.tr[i] = translation;
+        }
+        return new Result(new LookupKey("en-ru", text, 0), Collections.singletonList(definition));
+    }
+
+    private static class BindCounter implements ListUpdateCallback {
+        int binds;
+
+        @Override
+        public void onInserted(int position, int count) {
+            binds += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            binds += count;
+        }
+    }
+
+}
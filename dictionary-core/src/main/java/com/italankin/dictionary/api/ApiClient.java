@@ -15,8 +15,6 @@
  */
 package com.italankin.dictionary.api;
 
-import android.support.annotation.IntDef;
-
 import com.italankin.dictionary.dto.Definition;
 import com.italankin.dictionary.dto.DicResult;
 import com.italankin.dictionary.dto.Language;
@@ -51,8 +49,10 @@ public class ApiClient {
     public static final int FILTER_MORPHO = 0x4;
     public static final int FILTER_POS_FILTER = 0x8;
 
+    /**
+     * Denotes that the annotated int is a bitmask of {@code FILTER_*} constants.
+     */
     @Retention(RetentionPolicy.SOURCE)
-    @IntDef(value = {FILTER_NONE, FILTER_FAMILY, FILTER_SHORT_POS, FILTER_MORPHO, FILTER_POS_FILTER})
     public @interface LookupFlags {
     }
 
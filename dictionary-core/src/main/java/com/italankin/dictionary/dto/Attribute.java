@@ -15,13 +15,13 @@
  */
 package com.italankin.dictionary.dto;
 
-import android.os.Parcel;
-import android.os.Parcelable;
+import com.google.gson.annotations.JsonAdapter;
 
 /**
- * Basic class for translation results
+ * Basic class for translation results. Grammatical attributes are shared through
+ * {@link Vocabulary} when read from JSON.
  */
-public abstract class Attribute implements Parcelable {
+public abstract class Attribute {
 
     /**
      * Text of article, translation or synonym
@@ -31,21 +31,25 @@ public abstract class Attribute implements Parcelable {
     /**
      * Part of speech
      */
+    @JsonAdapter(Vocabulary.Adapter.class)
     public String pos;
 
     /**
      * Quantity
      */
+    @JsonAdapter(Vocabulary.Adapter.class)
     public String num;
 
     /**
      * Gender, if used
      */
+    @JsonAdapter(Vocabulary.Adapter.class)
     public String gen;
 
     /**
      * Aspect
      */
+    @JsonAdapter(Vocabulary.Adapter.class)
     public String asp;
 
     public Attribute() {
@@ -61,30 +65,4 @@ public abstract class Attribute implements Parcelable {
                 "}";
     }
 
-    ///////////////////////////////////////////////////////////////////////////
-    // Parcelable
-    ///////////////////////////////////////////////////////////////////////////
-
-    public Attribute(Parcel source) {
-        text = source.readString();
-        pos = source.readString();
-        num = source.readString();
-        gen = source.readString();
-        asp = source.readString();
-    }
-
-    @Override
-    public int describeContents() {
-        return 0;
-    }
-
-    @Override
-    public void writeToParcel(Parcel dest, int flags) {
-        dest.writeString(text);
-        dest.writeString(pos);
-        dest.writeString(num);
-        dest.writeString(gen);
-        dest.writeString(asp);
-    }
-
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Flattened, immutable representation of translations of a lookup result. Instead of a tree of
+ * {@link Translation} objects, all texts are kept in a single deduplicated string table and every
+ * level of the tree is described by arrays of indices, so result of any size consists of a fixed
+ * number of objects besides the strings.
+ * <p>
+ * Means, synonyms and examples of translation {@code i} occupy ranges
+ * {@code [start[i], start[i + 1])} of the corresponding arrays.
+ */
+public final class CompactResult {
+
+    private static final int NO_STRING = -1;
+
+    /**
+     * Deduplicated strings
+     */
+    private final String[] strings;
+
+    private final int[] trText;
+    private final int[] trPos;
+
+    private final int[] meanStart;
+    private final int[] meanText;
+
+    private final int[] synStart;
+    private final int[] synText;
+
+    private final int[] exStart;
+    private final int[] exText;
+
+    /**
+     * Flatten translations of the {@code definitions}. Translations with the same normalized text
+     * and part of speech are merged into one, with their means, synonyms and examples combined
+     * without duplicates. Translations are grouped by part of speech, groups and translations
+     * within a group keep the order of their first appearance.
+     *
+     * @param definitions list of definitions
+     * @return compact result
+     */
+    public static CompactResult from(List<Definition> definitions) {
+        LinkedHashMap<String, List<Entry>> groups = new LinkedHashMap<>();
+        HashMap<String, Entry> entries = new HashMap<>();
+        int trCount = 0;
+        for (Definition d : definitions) {
+            if (d.tr == null) {
+                continue;
+            }
+            for (Translation t : d.tr) {
+                String key = t.pos + "\n" + normalize(t.text);
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(t.text, t.pos);
+                    entries.put(key, entry);
+                    List<Entry> group = groups.get(t.pos);
+                    if (group == null) {
+                        group = new ArrayList<>();
+                        groups.put(t.pos, group);
+                    }
+                    group.add(entry);
+                    trCount++;
+                }
+                entry.merge(t);
+            }
+        }
+        List<Entry> merged = new ArrayList<>(trCount);
+        for (List<Entry> group : groups.values()) {
+            merged.addAll(group);
+        }
+        return new CompactResult(merged);
+    }
+
+    private CompactResult(List<Entry> entries) {
+        // count elements of every level first to allocate arrays of the exact size
+        int trCount = entries.size(), meanCount = 0, synCount = 0, exCount = 0;
+        for (Entry e : entries) {
+            meanCount += e.means.size();
+            synCount += e.synonyms.size();
+            exCount += e.examples.size();
+        }
+        trText = new int[trCount];
+        trPos = new int[trCount];
+        meanStart = new int[trCount + 1];
+        meanText = new int[meanCount];
+        synStart = new int[trCount + 1];
+        synText = new int[synCount];
+        exStart = new int[trCount + 1];
+        exText = new int[exCount];
+
+        StringTable table = new StringTable();
+        int tr = 0, mean = 0, syn = 0, ex = 0;
+        for (Entry e : entries) {
+            trText[tr] = table.indexOf(e.text);
+            trPos[tr] = table.indexOf(e.pos);
+            meanStart[tr] = mean;
+            mean = fill(table, e.means, meanText, mean);
+            synStart[tr] = syn;
+            syn = fill(table, e.synonyms, synText, syn);
+            exStart[tr] = ex;
+            ex = fill(table, e.examples, exText, ex);
+            tr++;
+        }
+        meanStart[tr] = mean;
+        synStart[tr] = syn;
+        exStart[tr] = ex;
+        strings = table.toArray();
+    }
+
+    /**
+     * @return number of translations
+     */
+    public int size() {
+        return trText.length;
+    }
+
+    public String text(int tr) {
+        return string(trText[tr]);
+    }
+
+    public String pos(int tr) {
+        return string(trPos[tr]);
+    }
+
+    public int meanCount(int tr) {
+        return meanStart[tr + 1] - meanStart[tr];
+    }
+
+    public String mean(int tr, int index) {
+        return string(meanText[meanStart[tr] + index]);
+    }
+
+    public int synonymCount(int tr) {
+        return synStart[tr + 1] - synStart[tr];
+    }
+
+    public String synonym(int tr, int index) {
+        return string(synText[synStart[tr] + index]);
+    }
+
+    public int exampleCount(int tr) {
+        return exStart[tr + 1] - exStart[tr];
+    }
+
+    public String example(int tr, int index) {
+        return string(exText[exStart[tr] + index]);
+    }
+
+    /**
+     * Concatenate means of the translation.
+     *
+     * @param tr        translation index
+     * @param delimiter delimiter
+     * @return all means as a single string
+     */
+    public String joinMeans(int tr, String delimiter) {
+        return join(meanStart, meanText, tr, delimiter);
+    }
+
+    /**
+     * Concatenate synonyms of the translation.
+     *
+     * @param tr        translation index
+     * @param delimiter delimiter
+     * @return all synonyms as a single string
+     */
+    public String joinSynonyms(int tr, String delimiter) {
+        return join(synStart, synText, tr, delimiter);
+    }
+
+    /**
+     * Concatenate examples of the translation.
+     *
+     * @param tr        translation index
+     * @param delimiter delimiter
+     * @return all examples as a single string
+     */
+    public String joinExamples(int tr, String delimiter) {
+        return join(exStart, exText, tr, delimiter);
+    }
+
+    private String join(int[] start, int[] text, int tr, String delimiter) {
+        int from = start[tr], to = start[tr + 1];
+        if (from == to) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(delimiter);
+            }
+            sb.append(string(text[i]));
+        }
+        return sb.toString();
+    }
+
+    private String string(int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int fill(StringTable table, Collection<String> texts, int[] dest, int offset) {
+        for (String text : texts) {
+            dest[offset++] = table.indexOf(text);
+        }
+        return offset;
+    }
+
+    /**
+     * Translation being merged from one or more {@link Translation}s.
+     */
+    private static class Entry {
+        final String text;
+        final String pos;
+        final Set<String> means = new LinkedHashSet<>(0);
+        final Set<String> synonyms = new LinkedHashSet<>(0);
+        final Set<String> examples = new LinkedHashSet<>(0);
+
+        Entry(String text, String pos) {
+            this.text = text;
+            this.pos = pos;
+        }
+
+        void merge(Translation t) {
+            add(means, t.mean);
+            add(synonyms, t.syn);
+            add(examples, t.ex);
+        }
+
+        private static void add(Set<String> dest, Attribute[] attrs) {
+            if (attrs != null) {
+                for (Attribute a : attrs) {
+                    if (a.text != null) {
+                        dest.add(a.text);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper for building string table.
+     */
+    private static class StringTable {
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int indexOf(String s) {
+            if (s == null) {
+                return NO_STRING;
+            }
+            Integer index = indices.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.add(s);
+                indices.put(s, index);
+            }
+            return index;
+        }
+
+        String[] toArray() {
+            return strings.toArray(new String[strings.size()]);
+        }
+    }
+
+}
@@ -15,14 +15,12 @@
  */
 package com.italankin.dictionary.dto;
 
-import android.support.annotation.NonNull;
-
 import java.util.Locale;
 
 /**
  * Class for handling languages data.
  */
-public class Language implements Comparable<Language> {
+public class Language {
 
     private String code;
     private String name;
@@ -49,16 +47,6 @@ public class Language implements Comparable<Language> {
         return code;
     }
 
-    @Override
-    public int compareTo(@NonNull Language another) {
-        if (this.favorite && !another.favorite) {
-            return -1;
-        } else if (!this.favorite && another.favorite) {
-            return 1;
-        }
-        return this.name.compareTo(another.name);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
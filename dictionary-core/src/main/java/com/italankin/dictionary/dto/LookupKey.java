@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import java.util.Locale;
+
+/**
+ * Compact identifier of a lookup: translation direction, query text and search flags.
+ */
+public final class LookupKey {
+
+    /**
+     * Translation direction (pair of language codes separated by hyphen ex. "en-ru")
+     */
+    public final String lang;
+
+    /**
+     * Normalized query text
+     */
+    public final String text;
+
+    /**
+     * Search options
+     */
+    public final int flags;
+
+    public LookupKey(String lang, String text, int flags) {
+        this.lang = lang;
+        this.text = text.trim().toLowerCase(Locale.ROOT);
+        this.flags = flags;
+    }
+
+    @Override
+    public String toString() {
+        return lang + "/" + flags + "/" + text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LookupKey key = (LookupKey) o;
+
+        return flags == key.flags && lang.equals(key.lang) && text.equals(key.text);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = lang.hashCode();
+        result = 31 * result + text.hashCode();
+        result = 31 * result + flags;
+        return result;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import java.util.List;
+
+/**
+ * Container object used to represent query result.
+ */
+public class Result {
+
+    /**
+     * Key of the lookup, which produced this result
+     */
+    public final LookupKey key;
+    public String text;
+    public String transcription;
+
+    /**
+     * Translations of all definitions
+     */
+    public final CompactResult translations;
+
+    public Result(LookupKey key, List<Definition> definitions) {
+        this.key = key;
+        this.transcription = "";
+        this.text = "";
+        for (Definition d : definitions) {
+            if (d.text != null && text.length() == 0) {
+                this.text = d.text;
+            }
+            if (d.ts != null && transcription.length() == 0) {
+                this.transcription = d.ts;
+            }
+        }
+        this.translations = CompactResult.from(definitions);
+    }
+
+    /**
+     * @return number of translations
+     */
+    public int getTranslationCount() {
+        return translations.size();
+    }
+
+    /**
+     * @param index translation index
+     * @return view of the translation
+     */
+    public TranslationView getTranslation(int index) {
+        return new TranslationView(translations, index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, s = translations.size(); i < s; i++) {
+            if (i != 0) {
+                sb.append("\n");
+            }
+            sb.append(translations.text(i));
+            if (translations.meanCount(i) > 0) {
+                sb.append(" (");
+                sb.append(translations.joinMeans(i, TranslationView.DELIMITER));
+                sb.append(")");
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Result result = (Result) o;
+
+        return text.equals(result.text);
+
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+}
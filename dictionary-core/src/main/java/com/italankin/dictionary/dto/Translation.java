@@ -0,0 +1,34 @@
+package com.italankin.dictionary.dto;
+
+/**
+ * Class represents a single word definition (or translation).
+ */
+public class Translation extends Attribute {
+
+    public Synonym[] syn;
+    public Mean[] mean;
+    public Example[] ex;
+
+    public Translation() {
+    }
+
+    /**
+     * Class for objects containing synonym data
+     */
+    public static class Synonym extends Attribute {
+    }
+
+    /**
+     * Class for objects presenting meaning of the word
+     */
+    public static class Mean extends Attribute {
+    }
+
+    /**
+     * Class for presenting examples for translation
+     */
+    public static class Example extends Attribute {
+        public Translation[] tr;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+/**
+ * Lightweight view of a single translation stored in {@link CompactResult}.
+ */
+public final class TranslationView {
+
+    public static final String DELIMITER = ", ";
+
+    private final CompactResult data;
+    private final int index;
+
+    TranslationView(CompactResult data, int index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    /**
+     * @return index of the translation in the result
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getText() {
+        return data.text(index);
+    }
+
+    /**
+     * @return part of speech
+     */
+    public String getPos() {
+        return data.pos(index);
+    }
+
+    public int getMeanCount() {
+        return data.meanCount(index);
+    }
+
+    public String getMean(int i) {
+        return data.mean(index, i);
+    }
+
+    public int getSynonymCount() {
+        return data.synonymCount(index);
+    }
+
+    public String getSynonym(int i) {
+        return data.synonym(index, i);
+    }
+
+    public int getExampleCount() {
+        return data.exampleCount(index);
+    }
+
+    public String getExample(int i) {
+        return data.example(index, i);
+    }
+
+    /**
+     * @return all means as a single string delimited by {@link #DELIMITER}
+     */
+    public String getMeans() {
+        return data.joinMeans(index, DELIMITER);
+    }
+
+    /**
+     * @return all synonyms as a single string delimited by {@link #DELIMITER}
+     */
+    public String getSynonyms() {
+        return data.joinSynonyms(index, DELIMITER);
+    }
+
+    /**
+     * @return all examples as a single string delimited by {@link #DELIMITER}
+     */
+    public String getExamples() {
+        return data.joinExamples(index, DELIMITER);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared table of attribute values ({@link Attribute#pos}, {@link Attribute#num},
+ * {@link Attribute#gen}, {@link Attribute#asp}). These values come from a small closed set,
+ * so readers replace them with canonical instances instead of keeping a copy per node.
+ */
+public final class Vocabulary {
+
+    /**
+     * Maximum number of values in the table, protects from unbounded growth on unexpected input
+     */
+    private static final int MAX_SIZE = 512;
+
+    /**
+     * Values added to the table in advance, without duplicates
+     */
+    static final String[] COMMON = {
+            // parts of speech
+            "noun", "verb", "adjective", "adverb", "pronoun", "preposition", "conjunction",
+            "interjection", "participle", "adverbial participle", "numeral", "particle",
+            "predicative", "parenthetic", "foreign", "invariable",
+            "существительное", "глагол", "прилагательное", "наречие", "местоимение", "предлог",
+            "союз", "междометие", "причастие", "деепричастие", "числительное", "частица",
+            "предикатив", "вводное слово",
+            // short parts of speech
+            "n", "v", "adj", "adv", "pron", "prep", "conj", "interj", "part", "num",
+            "сущ", "гл", "прил", "нареч", "мест", "предл", "межд", "прич", "деепр", "числ", "част",
+            // number
+            "sg", "pl", "мн", "ед",
+            // gender, neuter "n" is listed above
+            "m", "f", "c", "м", "ж", "ср",
+            // aspect
+            "pf", "impf", "сов", "несов"
+    };
+
+    private static final ConcurrentHashMap<String, String> VALUES = new ConcurrentHashMap<>(MAX_SIZE);
+
+    static {
+        for (String s : COMMON) {
+            VALUES.put(s, s);
+        }
+    }
+
+    private Vocabulary() {
+        // no instances
+    }
+
+    /**
+     * Get canonical instance of the attribute value.
+     *
+     * @param value value
+     * @return canonical instance equal to {@code value}
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = VALUES.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (VALUES.size() >= MAX_SIZE) {
+            return value;
+        }
+        canonical = VALUES.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * Gson adapter, which interns attribute values while reading JSON.
+     */
+    public static final class Adapter extends TypeAdapter<String> {
+        @Override
+        public void write(JsonWriter out, String value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public String read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return intern(in.nextString());
+        }
+    }
+
+}
@@ -0,0 +1,1307 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.Language;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.utils.Logger;
+import com.italankin.dictionary.utils.LanguageIndex;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.Preferences;
+import com.italankin.dictionary.utils.Preloader;
+import com.italankin.dictionary.utils.ResultRegistry;
+import com.italankin.dictionary.utils.RxSchedulers;
+import com.italankin.dictionary.utils.Settings;
+import com.italankin.dictionary.utils.SpellingCorrector;
+import com.italankin.dictionary.utils.TranslationIndex;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import dagger.Lazy;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * Presenter for working with {@link MainView}. Platform independent: all threading goes through
+ * {@link RxSchedulers}, so the whole lookup path can be driven on a plain JVM.
+ * <p>
+ * Presenter state is confined to the main scheduler: public methods must be called from it and
+ * background work never touches the fields, it only produces values, which are applied on the main
+ * scheduler.
+ */
+public class MainPresenter {
+
+    private static final int LOOKUP_DEBOUNCE = 450;
+
+    /**
+     * Maximum number of stored lookups shown in search results
+     */
+    private static final int STORED_SEARCH_LIMIT = 50;
+
+    /**
+     * Maximum number of spelling corrections proposed to user
+     */
+    private static final int SUGGESTIONS_LIMIT = 5;
+
+    /**
+     * Maximum number of destination languages of multi-target lookup
+     */
+    private static final int MAX_TARGETS = 5;
+
+    /**
+     * Api client for making requests, created on first use
+     */
+    private final Lazy<ApiClient> mClient;
+    /**
+     * API key for requests
+     */
+    private final String mApiKey;
+    /**
+     * Application preferences
+     */
+    private final Preferences mPrefs;
+    /**
+     * Local storage of lookup results
+     */
+    private final LookupStore mStore;
+    /**
+     * Registry of recent results, shared with other screens
+     */
+    private final ResultRegistry mRegistry;
+    /**
+     * Application warm-up stage, which may have already loaded languages
+     */
+    private final Preloader mPreloader;
+    /**
+     * Schedulers for background work and delivering results
+     */
+    private final RxSchedulers mSchedulers;
+
+    /**
+     * Reference to attached view
+     */
+    private WeakReference<MainView> mRef;
+
+    /**
+     * UI language for receiving results for this locale (if available)
+     */
+    private final String mUiLanguage;
+
+    private List<Language> mLangs;
+    /**
+     * Index of {@link #mLangs} for ordering and filtering
+     */
+    private LanguageIndex mLangIndex;
+    /**
+     * Whether favorites were changed since the languages were ordered last time
+     */
+    private boolean mFavoritesChanged = false;
+
+    private Language mSource;
+    private Language mDest;
+
+    /**
+     * Languages load events.
+     */
+    private Subscription mSubLangs;
+
+    /**
+     * Last result restoring subscription
+     */
+    private Subscription mSubRestore;
+
+    /**
+     * Search options changes subscription
+     */
+    private Subscription mSubSettings;
+
+    /**
+     * {@link Subject} for filtering input events.
+     */
+    private Subject<String, String> mEvents = PublishSubject.create();
+    /**
+     * Queries, which are not debounced: opening stored lookups, searches and repeated lookups
+     */
+    private Subject<Query, Query> mQueries = PublishSubject.create();
+    /**
+     * Codes of destination languages, which lookups should be cancelled
+     */
+    private Subject<String, String> mCancelledTargets = PublishSubject.create();
+    /**
+     * A {@link Subscription} for the lookup stream, which handles emissions of {@link #mEvents}
+     * and {@link #mQueries}.
+     */
+    private Subscription mEventsSub;
+    /**
+     * Number of the latest query, which entered the lookup stream. Outcomes of older queries
+     * are dropped, even if they were already scheduled for delivery.
+     */
+    private long mGeneration = 0;
+    /**
+     * Whether the latest query is still in progress
+     */
+    private boolean mInProgress = false;
+    /**
+     * Number of the query, which sections are displayed
+     */
+    private long mSectionGeneration = -1;
+    private Result mLastResult;
+    private ArrayList<String> mHistory = new ArrayList<>(0);
+
+    /**
+     * Callback function called when receiving languages list.
+     */
+    private Action1<Languages> onGetLangsResult = new Action1<Languages>() {
+        @Override
+        public void call(Languages languages) {
+            updateLanguages(languages);
+            MainView a = mRef.get();
+            if (a != null) {
+                a.onLanguagesResult(mLangs, getDestLanguageIndex(), getSourceLanguageIndex());
+            }
+            mSubLangs = null;
+        }
+    };
+
+    /**
+     * Handling languages fetching errors.
+     */
+    private Action1<Throwable> mGetLangsErrorHandler = new Action1<Throwable>() {
+        @Override
+        public void call(Throwable throwable) {
+            Logger.e("MainPresenter", "loadLanguages: ", throwable);
+            MainView a = mRef.get();
+            if (a != null) {
+                a.onLanguagesError();
+            }
+        }
+    };
+
+    public MainPresenter(Lazy<ApiClient> client, String apiKey, Preferences prefs, LookupStore store,
+            ResultRegistry registry, Preloader preloader, RxSchedulers schedulers) {
+        mClient = client;
+        mApiKey = apiKey;
+        mPrefs = prefs;
+        mStore = store;
+        mRegistry = registry;
+        mPreloader = preloader;
+        mSchedulers = schedulers;
+        mUiLanguage = Locale.getDefault().getLanguage();
+    }
+
+    /**
+     * @param view view for attaching presenter to
+     */
+    public void attach(MainView view) {
+        mRef = new WeakReference<>(view);
+        if (mEventsSub == null || mEventsSub.isUnsubscribed()) {
+            Observable<Query> input = mEvents
+                    .map(new Func1<String, String>() {
+                        @Override
+                        public String call(String s) {
+                            return s.replaceAll("[^\\p{L}\\w -']", "").trim();
+                        }
+                    })
+                    .filter(new Func1<String, Boolean>() {
+                        @Override
+                        public Boolean call(String s) {
+                            return s != null && !s.isEmpty();
+                        }
+                    })
+                    .debounce(LOOKUP_DEBOUNCE, TimeUnit.MILLISECONDS, mSchedulers.computation)
+                    .map(new Func1<String, Query>() {
+                        @Override
+                        public Query call(String text) {
+                            return new Query(Query.LOOKUP, text, null);
+                        }
+                    });
+            mEventsSub = Observable.merge(input, mQueries)
+                    .observeOn(mSchedulers.main)
+                    .switchMap(new Func1<Query, Observable<Outcome>>() {
+                        @Override
+                        public Observable<Outcome> call(Query query) {
+                            // previous query is unsubscribed by switchMap, cancelling its request
+                            mInProgress = true;
+                            return execute(query, ++mGeneration);
+                        }
+                    })
+                    .observeOn(mSchedulers.main)
+                    .subscribe(new Action1<Outcome>() {
+                        @Override
+                        public void call(Outcome outcome) {
+                            if (outcome.generation == mGeneration) {
+                                if (outcome.type != Outcome.SECTION) {
+                                    mInProgress = false;
+                                }
+                                apply(outcome);
+                            }
+                        }
+                    });
+        }
+        if (mSubSettings == null || mSubSettings.isUnsubscribed()) {
+            mSubSettings = mPrefs.settings()
+                    .map(new Func1<Settings, Integer>() {
+                        @Override
+                        public Integer call(Settings settings) {
+                            return settings.searchFilter;
+                        }
+                    })
+                    .distinctUntilChanged()
+                    .skip(1)
+                    .observeOn(mSchedulers.main)
+                    .subscribe(new Action1<Integer>() {
+                        @Override
+                        public void call(Integer flags) {
+                            // search options affect results, so the last result is outdated
+                            if (mLastResult != null) {
+                                mQueries.onNext(new Query(Query.LOOKUP, mLastResult.key.text, null));
+                            }
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Called when view is finishing or recreating itself.
+     */
+    public void detach() {
+        mRef.clear();
+    }
+
+    /**
+     * Should be called when view is finishing.
+     */
+    public void clearSubscriptions() {
+        if (mSubLangs != null && !mSubLangs.isUnsubscribed()) {
+            mSubLangs.unsubscribe();
+            mSubLangs = null;
+        }
+        if (mSubRestore != null && !mSubRestore.isUnsubscribed()) {
+            mSubRestore.unsubscribe();
+            mSubRestore = null;
+        }
+        if (mEventsSub != null && !mEventsSub.isUnsubscribed()) {
+            mEventsSub.unsubscribe();
+            mEventsSub = null;
+            mInProgress = false;
+        }
+        if (mSubSettings != null && !mSubSettings.isUnsubscribed()) {
+            mSubSettings.unsubscribe();
+            mSubSettings = null;
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // State
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Restore the last result by its key. Only the key should be saved in the view state,
+     * the result itself is kept in {@link LookupStore}, so it is loaded asynchronously and
+     * delivered to the attached view.
+     *
+     * @param key key of the last result
+     */
+    public void restoreLastResult(LookupKey key) {
+        if (mLastResult != null) {
+            return;
+        }
+        mSubRestore = getLocalResult(key)
+                .observeOn(mSchedulers.main)
+                .subscribe(
+                        new Action1<Result>() {
+                            @Override
+                            public void call(Result result) {
+                                mSubRestore = null;
+                                if (mLastResult != null) {
+                                    // user has already made a new lookup
+                                    return;
+                                }
+                                mLastResult = result;
+                                MainView a = mRef.get();
+                                if (a != null) {
+                                    a.onLookupResult(result);
+                                }
+                            }
+                        },
+                        new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                mSubRestore = null;
+                                Logger.e("MainPresenter", "restoreLastResult: ", throwable);
+                            }
+                        }
+                );
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Lookup
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Queue lookup request.
+     *
+     * @param text string to lookup
+     */
+    public void lookup(String text) {
+        mEvents.onNext(text);
+    }
+
+    /**
+     * Create {@link Observable} executing the query in background. Called on the main scheduler,
+     * so it may read presenter state, but the returned {@link Observable} must not.
+     *
+     * @param query      query
+     * @param generation query number
+     * @return {@link Observable} emitting single outcome of the query
+     */
+    private Observable<Outcome> execute(Query query, final long generation) {
+        Observable<Outcome> outcome;
+        switch (query.type) {
+            case Query.OPEN:
+                outcome = open(query.key);
+                break;
+            case Query.SEARCH:
+                outcome = searchStored(query.text, mSchedulers);
+                break;
+            default:
+                outcome = lookupInternal(query.text);
+        }
+        return outcome
+                .onErrorReturn(new Func1<Throwable, Outcome>() {
+                    @Override
+                    public Outcome call(Throwable throwable) {
+                        return Outcome.error(throwable);
+                    }
+                })
+                .map(new Func1<Outcome, Outcome>() {
+                    @Override
+                    public Outcome call(Outcome outcome) {
+                        outcome.generation = generation;
+                        return outcome;
+                    }
+                });
+    }
+
+    /**
+     * Deliver outcome of the latest query to the view.
+     *
+     * @param outcome outcome
+     */
+    private void apply(Outcome outcome) {
+        if (outcome.type == Outcome.SECTION) {
+            boolean reset = mSectionGeneration != outcome.generation;
+            mSectionGeneration = outcome.generation;
+            if (reset || outcome.position == 0) {
+                // the first target is the selected destination language
+                remember(outcome.result);
+            }
+            recordUse(outcome.result.key);
+            MainView a = mRef.get();
+            if (a != null) {
+                a.onSectionResult(outcome.position, outcome.target, outcome.result, reset);
+            }
+            return;
+        }
+        if (outcome.result != null) {
+            deliverResult(outcome.result);
+            recordUse(outcome.result.key);
+        }
+        MainView a = mRef.get();
+        if (a == null) {
+            return;
+        }
+        switch (outcome.type) {
+            case Outcome.CORRECTED:
+                a.onAutoCorrected(outcome.suggestions.get(0));
+                break;
+            case Outcome.SUGGESTIONS:
+                a.onSuggestions(outcome.suggestions);
+                break;
+            case Outcome.HITS:
+                a.onStoredSearchResult(outcome.hits);
+                break;
+            case Outcome.EMPTY:
+                a.onEmptyResult();
+                break;
+            case Outcome.ERROR:
+                mErrorHandler.call(outcome.error);
+                break;
+        }
+    }
+
+    /**
+     * Record lookup of the result served to the user in background, wherever it came from.
+     *
+     * @param key key of the result
+     */
+    private void recordUse(final LookupKey key) {
+        final Scheduler.Worker worker = mSchedulers.io.createWorker();
+        worker.schedule(new Action0() {
+            @Override
+            public void call() {
+                try {
+                    mStore.recordUse(key);
+                } finally {
+                    worker.unsubscribe();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lookup text.
+     *
+     * @param text string to lookup
+     * @return {@link Observable} emitting outcome of the lookup
+     */
+    private Observable<Outcome> lookupInternal(final String text) {
+        if (mSource == null || mDest == null) {
+            return Observable.error(new IllegalStateException("Languages are not loaded"));
+        }
+        final Settings settings = mPrefs.getSettings();
+        if (settings.multiTarget) {
+            List<Language> targets = getTargets();
+            if (targets.size() > 1) {
+                return lookupTargets(text, targets, settings);
+            }
+        }
+        @ApiClient.LookupFlags final int flags = settings.searchFilter;
+        final LookupKey key = new LookupKey(getLangParam(false), text, flags);
+        final LookupKey reverseKey = new LookupKey(getLangParam(true), text, flags);
+        final RxSchedulers schedulers = mSchedulers;
+
+        Observable<Result> remote = Observable
+                .defer(new Func0<Observable<List<Definition>>>() {
+                    @Override
+                    public Observable<List<Definition>> call() {
+                        return mClient.get().lookup(mApiKey, key.lang, text, mUiLanguage, flags);
+                    }
+                })
+                .subscribeOn(schedulers.io)
+                .flatMap(new Func1<List<Definition>, Observable<Result>>() {
+                    @Override
+                    public Observable<Result> call(List<Definition> definitions) {
+                        if (definitions.isEmpty() && settings.lookupReverse && !hasSuggestions(key)) {
+                            // if we got no result, attempt to lookup in reverse direction
+                            return mClient.get().lookup(mApiKey, reverseKey.lang, text, mUiLanguage, flags)
+                                    .map(new Func1<List<Definition>, Result>() {
+                                        @Override
+                                        public Result call(List<Definition> definitions) {
+                                            return createResult(reverseKey, definitions);
+                                        }
+                                    });
+                        }
+                        return Observable.just(createResult(key, definitions));
+                    }
+                });
+
+        return getLocalResult(key)
+                .switchIfEmpty(remote)
+                .flatMap(new Func1<Result, Observable<Outcome>>() {
+                    @Override
+                    public Observable<Outcome> call(Result result) {
+                        if (result != null) {
+                            return Observable.just(Outcome.result(result));
+                        }
+                        return suggest(key, text, settings.autoCorrect, schedulers);
+                    }
+                });
+    }
+
+    /**
+     * Lookup text in all target languages in parallel. Every target emits its section as soon
+     * as it completes, one failed target does not affect the others, and each of them can be
+     * cancelled with {@link #cancelTarget(Language)}. Reverse lookup is not attempted.
+     *
+     * @param text     string to lookup
+     * @param targets  destination languages, the selected one first
+     * @param settings current settings
+     * @return {@link Observable} emitting outcomes of the lookup
+     */
+    private Observable<Outcome> lookupTargets(final String text, List<Language> targets,
+            final Settings settings) {
+        @ApiClient.LookupFlags final int flags = settings.searchFilter;
+        final RxSchedulers schedulers = mSchedulers;
+        final AtomicBoolean found = new AtomicBoolean(false);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Observable<Outcome>> sections = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            final int position = i;
+            final Language target = targets.get(i);
+            final LookupKey key = new LookupKey(mSource.getCode() + "-" + target.getCode(), text, flags);
+            Observable<Result> remote = Observable
+                    .defer(new Func0<Observable<List<Definition>>>() {
+                        @Override
+                        public Observable<List<Definition>> call() {
+                            return mClient.get().lookup(mApiKey, key.lang, text, mUiLanguage, flags);
+                        }
+                    })
+                    .subscribeOn(schedulers.io)
+                    .map(new Func1<List<Definition>, Result>() {
+                        @Override
+                        public Result call(List<Definition> definitions) {
+                            return createResult(key, definitions);
+                        }
+                    });
+            Observable<String> cancelled = mCancelledTargets
+                    .filter(new Func1<String, Boolean>() {
+                        @Override
+                        public Boolean call(String code) {
+                            return code.equals(target.getCode());
+                        }
+                    });
+            sections.add(getLocalResult(key)
+                    .switchIfEmpty(remote)
+                    .filter(new Func1<Result, Boolean>() {
+                        @Override
+                        public Boolean call(Result result) {
+                            return result != null;
+                        }
+                    })
+                    .map(new Func1<Result, Outcome>() {
+                        @Override
+                        public Outcome call(Result result) {
+                            found.set(true);
+                            return Outcome.section(position, target, result);
+                        }
+                    })
+                    .takeUntil(cancelled)
+                    .onErrorResumeNext(new Func1<Throwable, Observable<Outcome>>() {
+                        @Override
+                        public Observable<Outcome> call(Throwable throwable) {
+                            Logger.e("MainPresenter", "lookupTargets: " + key.lang, throwable);
+                            error.set(throwable);
+                            return Observable.empty();
+                        }
+                    }));
+        }
+        final LookupKey primary = new LookupKey(getLangParam(false), text, flags);
+        return Observable.merge(sections)
+                .concatWith(Observable.defer(new Func0<Observable<Outcome>>() {
+                    @Override
+                    public Observable<Outcome> call() {
+                        if (found.get()) {
+                            return Observable.just(Outcome.complete());
+                        }
+                        if (error.get() != null) {
+                            return Observable.error(error.get());
+                        }
+                        return suggest(primary, text, settings.autoCorrect, schedulers);
+                    }
+                }));
+    }
+
+    /**
+     * @return destination languages of multi-target lookup: the selected one and favorites
+     */
+    private List<Language> getTargets() {
+        List<Language> targets = new ArrayList<>(MAX_TARGETS);
+        targets.add(mDest);
+        for (Language l : mLangs) {
+            if (targets.size() == MAX_TARGETS) {
+                break;
+            }
+            if (l.isFavorite() && !l.equals(mSource) && !l.equals(mDest)) {
+                targets.add(l);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Cancel lookup into the {@code target} language, if multi-target lookup is in progress.
+     *
+     * @param target destination language
+     */
+    public void cancelTarget(Language target) {
+        mCancelledTargets.onNext(target.getCode());
+    }
+
+    /**
+     * Get result from {@link ResultRegistry} or {@link LookupStore}, so lookups of previously
+     * looked up or prefetched words are served without network requests.
+     *
+     * @param key lookup key
+     * @return {@link Observable} emitting local result, or completing without emissions,
+     * if there is no local result for the {@code key}
+     */
+    private Observable<Result> getLocalResult(final LookupKey key) {
+        Result result = mRegistry.get(key);
+        if (result != null) {
+            return Observable.just(result);
+        }
+        return mStore.get(key)
+                .map(new Func1<List<Definition>, Result>() {
+                    @Override
+                    public Result call(List<Definition> definitions) {
+                        Result result = new Result(key, definitions);
+                        mRegistry.put(result);
+                        return result;
+                    }
+                })
+                .onErrorResumeNext(Observable.<Result>empty())
+                .subscribeOn(mSchedulers.io);
+    }
+
+    /**
+     * Check if there are stored words, which are similar to the misspelled lookup. In this case
+     * reverse direction lookup will most likely fail too. Should be called from background thread.
+     *
+     * @param key lookup key, which returned no results
+     * @return {@code true}, if there are suggestions
+     */
+    private boolean hasSuggestions(LookupKey key) {
+        return !mStore.getCorrector().suggest(key.lang, key.text, 1).isEmpty();
+    }
+
+    /**
+     * Propose corrections for the lookup, which returned no results. If there are none, search
+     * stored translations, maybe {@code text} is a translation of a stored word. Called in
+     * background.
+     *
+     * @param key         lookup key
+     * @param text        lookup text
+     * @param autoCorrect whether unambiguous correction should be applied
+     * @param schedulers  schedulers
+     * @return {@link Observable} emitting outcome
+     */
+    private Observable<Outcome> suggest(LookupKey key, final String text, final boolean autoCorrect,
+            final RxSchedulers schedulers) {
+        return mStore.suggest(key, SUGGESTIONS_LIMIT)
+                .subscribeOn(schedulers.io)
+                .flatMap(new Func1<List<SpellingCorrector.Suggestion>, Observable<Outcome>>() {
+                    @Override
+                    public Observable<Outcome> call(final List<SpellingCorrector.Suggestion> suggestions) {
+                        if (suggestions.isEmpty()) {
+                            return searchStored(text, schedulers);
+                        }
+                        SpellingCorrector.Suggestion best = suggestions.get(0);
+                        boolean unambiguous = suggestions.size() == 1 ||
+                                suggestions.get(1).distance > best.distance;
+                        if (unambiguous && autoCorrect) {
+                            return getLocalResult(best.key)
+                                    .map(new Func1<Result, Outcome>() {
+                                        @Override
+                                        public Outcome call(Result result) {
+                                            return Outcome.corrected(result, suggestions.subList(0, 1));
+                                        }
+                                    })
+                                    .defaultIfEmpty(Outcome.empty());
+                        }
+                        return Observable.just(Outcome.suggestions(suggestions));
+                    }
+                });
+    }
+
+    private void deliverResult(Result result) {
+        remember(result);
+        MainView a = mRef.get();
+        if (a != null) {
+            a.onLookupResult(result);
+        }
+    }
+
+    private void remember(Result result) {
+        mLastResult = result;
+        if (!mHistory.contains(result.text)) {
+            mHistory.add(result.text);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Stored translations
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Search stored lookups, which translations contain words of the {@code query}.
+     *
+     * @param query words of translation
+     */
+    public void searchStored(String query) {
+        mQueries.onNext(new Query(Query.SEARCH, query, null));
+    }
+
+    private Observable<Outcome> searchStored(String query, RxSchedulers schedulers) {
+        return mStore.search(query, STORED_SEARCH_LIMIT)
+                .subscribeOn(schedulers.io)
+                .map(new Func1<List<TranslationIndex.Hit>, Outcome>() {
+                    @Override
+                    public Outcome call(List<TranslationIndex.Hit> hits) {
+                        return hits.isEmpty() ? Outcome.empty() : Outcome.hits(hits);
+                    }
+                });
+    }
+
+    /**
+     * Find stored words in the current source language starting with {@code prefix}. Does not
+     * block, may be called from any thread.
+     *
+     * @param prefix entered text
+     * @param out    array to fill with words, best ranked first
+     * @return number of words written to {@code out}
+     */
+    public int complete(CharSequence prefix, String[] out) {
+        Language source = mSource;
+        if (source == null) {
+            return 0;
+        }
+        return mStore.complete(source.getCode(), prefix, out);
+    }
+
+    /**
+     * Show stored lookup result.
+     *
+     * @param key key of the stored lookup
+     */
+    public void openStored(LookupKey key) {
+        mQueries.onNext(new Query(Query.OPEN, null, key));
+    }
+
+    private Observable<Outcome> open(LookupKey key) {
+        return getLocalResult(key)
+                .map(new Func1<Result, Outcome>() {
+                    @Override
+                    public Outcome call(Result result) {
+                        return Outcome.result(result);
+                    }
+                })
+                .defaultIfEmpty(Outcome.empty());
+    }
+
+    /**
+     * Create {@link Result}, save it in {@link LookupStore} and register in {@link ResultRegistry}.
+     * Should be called from background thread.
+     *
+     * @param key         lookup key
+     * @param definitions received definitions
+     * @return result or {@code null}, if there are no definitions
+     */
+    private Result createResult(LookupKey key, List<Definition> definitions) {
+        if (definitions.isEmpty()) {
+            return null;
+        }
+        mStore.put(key, definitions);
+        Result result = new Result(key, definitions);
+        mRegistry.put(result);
+        return result;
+    }
+
+    /**
+     * Concat languages codes for sending request to server.
+     *
+     * @param reverse false: SOURCE-DEST, true: DEST-SOURCE
+     * @return language parameter
+     */
+    private String getLangParam(boolean reverse) {
+        if (reverse) {
+            return mDest.getCode() + "-" + mSource.getCode();
+        } else {
+            return mSource.getCode() + "-" + mDest.getCode();
+        }
+    }
+
+    public Result getLastResult() {
+        return mLastResult;
+    }
+
+    /**
+     * Convert {@link Result} into "shareable" form.
+     *
+     * @return array of 2 strings, first is the text, second is the translations, or {@code null},
+     * if there is no result
+     */
+    public String[] getShareResult() {
+        if (mLastResult == null) {
+            return null;
+        }
+        String[] result = new String[2];
+        if (mPrefs.getSettings().shareIncludeTranscription && mLastResult.transcription != null &&
+                !mLastResult.transcription.isEmpty()) {
+            result[0] = mLastResult.text + " [" + mLastResult.transcription + "]";
+        } else {
+            result[0] = mLastResult.text;
+        }
+        result[1] = mLastResult.toString();
+        return result;
+    }
+
+    public boolean isRequestInProgress() {
+        return mInProgress;
+    }
+
+    public ArrayList<String> getHistory() {
+        return mHistory;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Languages
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Load languages list. They will be loaded from net, if there are no cached files. Languages
+     * preloaded by {@link Preloader} are used, if available.
+     */
+    public void loadLanguages() {
+        if (mLangs != null && mDest != null && mSource != null) {
+            mRef.get().onLanguagesResult(mLangs, getDestLanguageIndex(), getSourceLanguageIndex());
+            return;
+        }
+
+        if (mSubLangs != null && !mSubLangs.isUnsubscribed()) {
+            // wait for request to finish
+            return;
+        }
+
+        if (mPrefs.shouldUpdateLangs()) {
+            mSubLangs = loadLanguagesFromRemote()
+                    .observeOn(mSchedulers.main)
+                    .subscribe(onGetLangsResult, mGetLangsErrorHandler);
+        } else {
+            Observable<List<Language>> cached = mPreloader.takeLanguages();
+            if (cached == null) {
+                cached = mPrefs.getLanguagesList();
+            } else {
+                // warm-up may have decided not to load languages
+                cached = cached.switchIfEmpty(mPrefs.getLanguagesList());
+            }
+            mSubLangs = cached
+                    .map(new Func1<List<Language>, Languages>() {
+                        @Override
+                        public Languages call(List<Language> list) {
+                            return prepareLanguages(list);
+                        }
+                    })
+                    .onErrorResumeNext(new Func1<Throwable, Observable<Languages>>() {
+                        @Override
+                        public Observable<Languages> call(Throwable throwable) {
+                            return loadLanguagesFromRemote();
+                        }
+                    })
+                    .subscribeOn(mSchedulers.io)
+                    .observeOn(mSchedulers.main)
+                    .subscribe(onGetLangsResult, mGetLangsErrorHandler);
+        }
+    }
+
+    private Observable<Languages> loadLanguagesFromRemote() {
+        return Observable
+                .defer(new Func0<Observable<List<Language>>>() {
+                    @Override
+                    public Observable<List<Language>> call() {
+                        return mClient.get().getLangs(mApiKey);
+                    }
+                })
+                .subscribeOn(mSchedulers.io)
+                .map(new Func1<List<Language>, Languages>() {
+                    @Override
+                    public Languages call(List<Language> list) {
+                        Languages languages = prepareLanguages(list);
+                        mPrefs.setLangsTimestamp(new Date());
+                        mPrefs.saveLanguagesList(languages.list);
+                        return languages;
+                    }
+                });
+    }
+
+    /**
+     * Apply saved favorites to the list and build its index. Does not touch presenter state, so
+     * it can be called in background.
+     *
+     * @param list list of the languages
+     * @return ordered list and its index
+     */
+    private Languages prepareLanguages(List<Language> list) {
+        applyFavorites(list);
+        LanguageIndex index = new LanguageIndex(list, Locale.getDefault());
+        index.order(list);
+        return new Languages(list, index);
+    }
+
+    /**
+     * Setup presenter fields for manipulating with languages. Must be called on the main scheduler.
+     *
+     * @param languages languages prepared by {@link #prepareLanguages(List)}
+     */
+    private void updateLanguages(Languages languages) {
+        List<Language> list = languages.list;
+        mLangIndex = languages.index;
+        mLangs = list;
+        mFavoritesChanged = false;
+        if (!list.isEmpty()) {
+            setSourceLanguageByCode(mPrefs.getSourceLang());
+            setDestLanguageByCode(mPrefs.getDestLang());
+        }
+    }
+
+    /**
+     * Move favorite languages to the top of the list, if favorites were changed.
+     *
+     * @return {@code true}, if the order of the languages has changed
+     */
+    public boolean sortLanguages() {
+        if (!mFavoritesChanged || mLangIndex == null) {
+            return false;
+        }
+        mFavoritesChanged = false;
+        mLangIndex.order(mLangs);
+        return true;
+    }
+
+    /**
+     * Find languages by name or code.
+     *
+     * @param query query, see {@link LanguageIndex#filter(CharSequence)}
+     * @return matching languages, favorites first
+     */
+    public List<Language> filterLanguages(CharSequence query) {
+        if (mLangIndex == null) {
+            return Collections.emptyList();
+        }
+        return mLangIndex.filter(query);
+    }
+
+    /**
+     * Set source language by its position in languages list.
+     *
+     * @param position language index
+     */
+    public boolean setSourceLanguage(int position) {
+        Language l = mLangs.get(position);
+        if (mSource != l) {
+            mSource = l;
+            mPrefs.setSourceLang(mSource);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set destination language by its position in languages list.
+     *
+     * @param position language index
+     */
+    public boolean setDestLanguage(int position) {
+        Language l = mLangs.get(position);
+        if (mDest != l) {
+            mDest = l;
+            mPrefs.setDestLang(mDest);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set source language by its code.
+     *
+     * @param code language code
+     */
+    public void setSourceLanguageByCode(String code) {
+        if (code == null) {
+            code = Locale.getDefault().getLanguage();
+        }
+        mSource = mLangs.get(0);
+        for (Language l : mLangs) {
+            if (l.getCode().equals(code)) {
+                mSource = l;
+                break;
+            }
+        }
+        mPrefs.setSourceLang(mSource);
+    }
+
+
+    /**
+     * Set dest language by its code.
+     *
+     * @param code language code
+     */
+    public void setDestLanguageByCode(String code) {
+        if (code == null) {
+            code = Locale.getDefault().getLanguage();
+        }
+        mDest = mLangs.get(0);
+        for (Language l : mLangs) {
+            if (l.getCode().equals(code)) {
+                mDest = l;
+                break;
+            }
+        }
+        mPrefs.setDestLang(mDest);
+    }
+
+    public int getSourceLanguageIndex() {
+        return mLangs.indexOf(mSource);
+    }
+
+    public int getDestLanguageIndex() {
+        return mLangs.indexOf(mDest);
+    }
+
+    /**
+     * Swap languages.
+     *
+     * @return {@code true}, if languages were swapped, {@code false} otherwise
+     * (ex. {@link #mSource} == {@link #mDest})
+     */
+    public boolean swapLanguages() {
+        if (!mSource.getCode().equals(mDest.getCode())) {
+            Language tmp = mSource;
+            mSource = mDest;
+            mPrefs.setSourceLang(mSource);
+            mDest = tmp;
+            mPrefs.setDestLang(mDest);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Save language list on the disk.
+     */
+    public void saveLanguages() {
+        mPrefs.saveLanguagesList(mLangs);
+    }
+
+    /**
+     * Mark language as favorite or not.
+     *
+     * @param language language
+     * @param favorite whether language is favorite
+     */
+    public void setFavorite(Language language, boolean favorite) {
+        language.setFavorite(favorite);
+        mFavoritesChanged = true;
+        Set<String> codes = new HashSet<>();
+        for (Language l : mLangs) {
+            if (l.isFavorite()) {
+                codes.add(l.getCode());
+            }
+        }
+        mPrefs.setFavoriteLangs(codes);
+    }
+
+    /**
+     * Set favorite flags of the languages from the saved favorites. If favorites were never saved,
+     * flags of the {@code list} are saved instead.
+     *
+     * @param list list of the languages
+     */
+    private void applyFavorites(List<Language> list) {
+        Set<String> favorites = mPrefs.getFavoriteLangs();
+        if (favorites == null) {
+            // first start or languages file of the older version, which contains favorite flags
+            favorites = new HashSet<>();
+            for (Language l : list) {
+                if (l.isFavorite()) {
+                    favorites.add(l.getCode());
+                }
+            }
+            mPrefs.setFavoriteLangs(favorites);
+            return;
+        }
+        for (Language l : list) {
+            l.setFavorite(favorites.contains(l.getCode()));
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Error handlers
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Generic error handler.
+     */
+    private Action1<Throwable> mErrorHandler = new Action1<Throwable>() {
+        @Override
+        public void call(Throwable throwable) {
+            Logger.e("MainPresenter", "lookup: ", throwable);
+            MainView a = mRef.get();
+            if (a != null) {
+                a.onError(getError(throwable));
+            }
+        }
+    };
+
+    /**
+     * @param throwable lookup error
+     * @return one of {@code MainView.ERROR_*} constants
+     */
+    private static int getError(Throwable throwable) {
+        if (throwable instanceof HttpException) {
+            switch (((HttpException) throwable).code()) {
+                case 400:
+                case 501:
+                    return MainView.ERROR_LANG_NOT_SUPPORTED;
+                case 401:
+                case 402:
+                case 403:
+                case 502:
+                    return MainView.ERROR_GENERIC;
+                case 413:
+                    return MainView.ERROR_LONG_REQUEST;
+                default:
+                    return MainView.ERROR_NO_RESULTS;
+            }
+        }
+        if (throwable instanceof IOException) {
+            return MainView.ERROR_NO_CONNECTION;
+        }
+        return MainView.ERROR_GENERIC;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Lookup stream
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Request to the lookup stream.
+     */
+    private static final class Query {
+        static final int LOOKUP = 0;
+        static final int OPEN = 1;
+        static final int SEARCH = 2;
+
+        final int type;
+        final String text;
+        final LookupKey key;
+
+        Query(int type, String text, LookupKey key) {
+            this.type = type;
+            this.text = text;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Languages list with its index, produced in background and applied on the main scheduler.
+     */
+    private static final class Languages {
+        final List<Language> list;
+        final LanguageIndex index;
+
+        Languages(List<Language> list, LanguageIndex index) {
+            this.list = list;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Outcome of a {@link Query}, produced in background and applied on the main scheduler.
+     */
+    private static final class Outcome {
+        static final int RESULT = 0;
+        static final int CORRECTED = 1;
+        static final int SUGGESTIONS = 2;
+        static final int HITS = 3;
+        static final int EMPTY = 4;
+        static final int ERROR = 5;
+        static final int SECTION = 6;
+        static final int COMPLETE = 7;
+
+        final int type;
+        Result result;
+        /**
+         * Destination language of the section
+         */
+        Language target;
+        /**
+         * Position of the section
+         */
+        int position;
+        List<SpellingCorrector.Suggestion> suggestions;
+        List<TranslationIndex.Hit> hits;
+        Throwable error;
+        /**
+         * Number of the query
+         */
+        long generation;
+
+        private Outcome(int type) {
+            this.type = type;
+        }
+
+        static Outcome result(Result result) {
+            Outcome outcome = new Outcome(RESULT);
+            outcome.result = result;
+            return outcome;
+        }
+
+        static Outcome corrected(Result result, List<SpellingCorrector.Suggestion> applied) {
+            Outcome outcome = new Outcome(CORRECTED);
+            outcome.result = result;
+            outcome.suggestions = applied;
+            return outcome;
+        }
+
+        static Outcome suggestions(List<SpellingCorrector.Suggestion> suggestions) {
+            Outcome outcome = new Outcome(SUGGESTIONS);
+            outcome.suggestions = suggestions;
+            return outcome;
+        }
+
+        static Outcome hits(List<TranslationIndex.Hit> hits) {
+            Outcome outcome = new Outcome(HITS);
+            outcome.hits = hits;
+            return outcome;
+        }
+
+        static Outcome section(int position, Language target, Result result) {
+            Outcome outcome = new Outcome(SECTION);
+            outcome.position = position;
+            outcome.target = target;
+            outcome.result = result;
+            return outcome;
+        }
+
+        static Outcome complete() {
+            return new Outcome(COMPLETE);
+        }
+
+        static Outcome empty() {
+            return new Outcome(EMPTY);
+        }
+
+        static Outcome error(Throwable error) {
+            Outcome outcome = new Outcome(ERROR);
+            outcome.error = error;
+            return outcome;
+        }
+    }
+
+}
\ No newline at end of file
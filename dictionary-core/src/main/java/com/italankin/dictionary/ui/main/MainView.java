@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import com.italankin.dictionary.dto.Language;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.utils.SpellingCorrector;
+import com.italankin.dictionary.utils.TranslationIndex;
+
+import java.util.List;
+
+/**
+ * View interface of {@link MainPresenter}. All methods are called on the main scheduler.
+ */
+public interface MainView {
+
+    int ERROR_GENERIC = 0;
+    int ERROR_NO_CONNECTION = 1;
+    int ERROR_LANG_NOT_SUPPORTED = 2;
+    int ERROR_LONG_REQUEST = 3;
+    int ERROR_NO_RESULTS = 4;
+
+    /**
+     * Languages list was loaded.
+     *
+     * @param languages   list of languages
+     * @param destIndex   index of the destination language
+     * @param sourceIndex index of the source language
+     */
+    void onLanguagesResult(List<Language> languages, int destIndex, int sourceIndex);
+
+    /**
+     * Languages list could not be loaded.
+     */
+    void onLanguagesError();
+
+    /**
+     * @param result lookup result
+     */
+    void onLookupResult(Result result);
+
+    /**
+     * Result of the multi-target lookup for one of the destination languages. Sections arrive
+     * in order of completion.
+     *
+     * @param position position of the section, sections should be displayed in this order
+     * @param target   destination language
+     * @param result   lookup result
+     * @param reset    {@code true}, if this is the first section of a new lookup
+     */
+    void onSectionResult(int position, Language target, Result result, boolean reset);
+
+    /**
+     * Lookup returned nothing.
+     */
+    void onEmptyResult();
+
+    /**
+     * @param hits stored lookups, which translations match the query
+     */
+    void onStoredSearchResult(List<TranslationIndex.Hit> hits);
+
+    /**
+     * @param suggestions spelling corrections for the lookup, which returned nothing
+     */
+    void onSuggestions(List<SpellingCorrector.Suggestion> suggestions);
+
+    /**
+     * The lookup, which returned nothing, was replaced with the stored one.
+     *
+     * @param suggestion applied correction
+     */
+    void onAutoCorrected(SpellingCorrector.Suggestion suggestion);
+
+    /**
+     * @param error one of {@code ERROR_*} constants
+     */
+    void onError(int error);
+
+}
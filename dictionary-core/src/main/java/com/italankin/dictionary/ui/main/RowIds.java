@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import java.util.HashSet;
+
+/**
+ * Generator of stable identifiers of translation list rows. Identifiers are derived from
+ * translation text and part of speech, so the same translation keeps its identifier across
+ * successive lookups. Rows with equal text and part of speech get the next free identifier
+ * in order of their appearance, so identifiers are unique within a list.
+ * <p>
+ * A new instance should be used for every list.
+ */
+public final class RowIds {
+
+    private final HashSet<Long> mUsed = new HashSet<>();
+
+    /**
+     * @param text translation text
+     * @param pos  part of speech
+     * @return identifier of the translation row, unique within the list
+     */
+    public long next(String text, String pos) {
+        return unique(of(text, pos));
+    }
+
+    /**
+     * @param section section position
+     * @return identifier of the section header, unique within the list
+     */
+    public long nextHeader(int section) {
+        return unique(Long.MIN_VALUE + section);
+    }
+
+    /**
+     * @param text translation text
+     * @param pos  part of speech
+     * @return identifier derived from text and part of speech, not necessarily unique
+     */
+    public static long of(String text, String pos) {
+        long textHash = text == null ? 0 : text.hashCode();
+        long posHash = pos == null ? 0 : pos.hashCode();
+        return (textHash << 32) | (posHash & 0xffffffffL);
+    }
+
+    private long unique(long id) {
+        while (!mUsed.add(id)) {
+            id++;
+        }
+        return id;
+    }
+
+}
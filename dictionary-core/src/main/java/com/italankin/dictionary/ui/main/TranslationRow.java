@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.ui.main;
+
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.dto.TranslationView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable display-ready representation of {@link TranslationView}, used by the translation
+ * list adapter. All texts are prepared once, so binding does not allocate.
+ */
+public final class TranslationRow {
+
+    /**
+     * Source translation or {@code null} for section headers
+     */
+    public final TranslationView source;
+
+    /**
+     * Result, which translation is displayed in this row
+     */
+    public final Result result;
+
+    /**
+     * Whether this row is a section header
+     */
+    public final boolean header;
+
+    /**
+     * Stable identifier, see {@link RowIds}
+     */
+    public final long id;
+
+    public final CharSequence text;
+
+    /**
+     * Formatted part of speech or {@code null}, if it is not present
+     */
+    public final CharSequence pos;
+
+    public final CharSequence means;
+
+    public final CharSequence synonyms;
+
+    private TranslationRow(Result result, TranslationView source, RowIds ids) {
+        String text = source.getText();
+        String pos = source.getPos();
+        this.source = source;
+        this.result = result;
+        this.header = false;
+        this.id = ids.next(text, pos);
+        this.text = text;
+        this.pos = pos == null || pos.isEmpty() ? null : "(" + pos + ")";
+        this.means = source.getMeans();
+        this.synonyms = source.getSynonyms();
+    }
+
+    private TranslationRow(Result result, CharSequence title, long id) {
+        this.source = null;
+        this.result = result;
+        this.header = true;
+        this.id = id;
+        this.text = title;
+        this.pos = null;
+        this.means = null;
+        this.synonyms = null;
+    }
+
+    /**
+     * Create rows for translations of the result. Should be called from background thread.
+     *
+     * @param result result
+     * @return list of rows
+     */
+    public static List<TranslationRow> from(Result result) {
+        int count = result.getTranslationCount();
+        List<TranslationRow> rows = new ArrayList<>(count);
+        RowIds ids = new RowIds();
+        for (int i = 0; i < count; i++) {
+            rows.add(new TranslationRow(result, result.getTranslation(i), ids));
+        }
+        return rows;
+    }
+
+    /**
+     * Create rows for results of multi-target lookup, each section is preceded by a header.
+     * Should be called from background thread.
+     *
+     * @param sections sections, sorted by position
+     * @return list of rows
+     */
+    public static List<TranslationRow> fromSections(List<Section> sections) {
+        List<TranslationRow> rows = new ArrayList<>();
+        RowIds ids = new RowIds();
+        for (Section section : sections) {
+            Result result = section.result;
+            rows.add(new TranslationRow(result, section.title, ids.nextHeader(section.position)));
+            for (int i = 0, count = result.getTranslationCount(); i < count; i++) {
+                rows.add(new TranslationRow(result, result.getTranslation(i), ids));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @param other row to compare with
+     * @return {@code true}, if rows will be displayed identically
+     */
+    public boolean sameContents(TranslationRow other) {
+        return header == other.header &&
+                equals(text, other.text) &&
+                equals(pos, other.pos) &&
+                equals(means, other.means) &&
+                equals(synonyms, other.synonyms);
+    }
+
+    /**
+     * @return {@code true}, if both texts are {@code null} or have equal characters
+     */
+    private static boolean equals(CharSequence a, CharSequence b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null || a.length() != b.length()) {
+            return false;
+        }
+        if (a instanceof String && b instanceof String) {
+            return a.equals(b);
+        }
+        for (int i = 0, length = a.length(); i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Result of the multi-target lookup for one destination language.
+     */
+    public static final class Section {
+        public final int position;
+        public final CharSequence title;
+        public final Result result;
+
+        public Section(int position, CharSequence title, Result result) {
+            this.position = position;
+            this.title = title;
+            this.result = result;
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import dagger.Lazy;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Blocking cache-first lookups for callers without UI. Results are taken from
+ * {@link ResultRegistry}, then from {@link LookupStore}, and only then requested from the server.
+ * Concurrent requests for the same key share a single network call.
+ */
+public class CachedLookup {
+
+    /**
+     * Maximum number of simultaneous network requests of one batch
+     */
+    private static final int MAX_CONCURRENT = 4;
+
+    private final Lazy<ApiClient> mClient;
+    private final String mApiKey;
+    private final LookupStore mStore;
+    private final ResultRegistry mRegistry;
+
+    /**
+     * Network requests in progress
+     */
+    private final ConcurrentMap<LookupKey, Observable<Result>> mInFlight = new ConcurrentHashMap<>();
+
+    public CachedLookup(Lazy<ApiClient> client, String apiKey, LookupStore store, ResultRegistry registry) {
+        mClient = client;
+        mApiKey = apiKey;
+        mStore = store;
+        mRegistry = registry;
+    }
+
+    /**
+     * Lookup words. Stored results are returned immediately, the rest are requested in parallel.
+     * Blocks until finished, should be called from background thread.
+     *
+     * @param keys      lookup keys
+     * @param ui        language of the interface
+     * @param cacheOnly {@code true} to skip network requests
+     * @return results in order of {@code keys}, {@code null} for keys, which have no results or
+     * failed
+     */
+    public List<Result> lookup(List<LookupKey> keys, final String ui, boolean cacheOnly) {
+        final Result[] results = new Result[keys.size()];
+        // positions of every missing key, so duplicate keys are requested once
+        final Map<LookupKey, List<Integer>> missing = new LinkedHashMap<>(0);
+        for (int i = 0; i < results.length; i++) {
+            LookupKey key = keys.get(i);
+            List<Integer> positions = missing.get(key);
+            if (positions != null) {
+                positions.add(i);
+                continue;
+            }
+            results[i] = getLocal(key);
+            if (results[i] == null && !cacheOnly) {
+                positions = new ArrayList<>(1);
+                positions.add(i);
+                missing.put(key, positions);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Observable.from(missing.keySet())
+                    .flatMap(new Func1<LookupKey, Observable<Void>>() {
+                        @Override
+                        public Observable<Void> call(final LookupKey key) {
+                            return fetch(key, ui)
+                                    .map(new Func1<Result, Void>() {
+                                        @Override
+                                        public Void call(Result result) {
+                                            for (int i : missing.get(key)) {
+                                                results[i] = result;
+                                            }
+                                            return null;
+                                        }
+                                    })
+                                    .onErrorResumeNext(new Func1<Throwable, Observable<Void>>() {
+                                        @Override
+                                        public Observable<Void> call(Throwable throwable) {
+                                            Logger.e("CachedLookup", "lookup: " + key, throwable);
+                                            return Observable.empty();
+                                        }
+                                    });
+                        }
+                    }, MAX_CONCURRENT)
+                    .toBlocking()
+                    .lastOrDefault(null);
+        }
+        List<Result> list = new ArrayList<>(results.length);
+        Collections.addAll(list, results);
+        return list;
+    }
+
+    private Result getLocal(LookupKey key) {
+        Result result = mRegistry.get(key);
+        if (result != null) {
+            return result;
+        }
+        List<Definition> definitions = mStore.get(key)
+                .onErrorResumeNext(Observable.<List<Definition>>empty())
+                .toBlocking()
+                .singleOrDefault(null);
+        if (definitions == null) {
+            return null;
+        }
+        result = new Result(key, definitions);
+        mRegistry.put(result);
+        return result;
+    }
+
+    /**
+     * Request result from the server, joining the request for the same key in progress, if any.
+     *
+     * @return {@link Observable} emitting result, or completing without emissions, if there are
+     * no results
+     */
+    private Observable<Result> fetch(final LookupKey key, String ui) {
+        Observable<Result> request = mInFlight.get(key);
+        if (request != null) {
+            return request;
+        }
+        request = mClient.get()
+                .lookup(mApiKey, key.lang, key.text, ui, key.flags)
+                .subscribeOn(Schedulers.io())
+                .filter(new Func1<List<Definition>, Boolean>() {
+                    @Override
+                    public Boolean call(List<Definition> definitions) {
+                        return !definitions.isEmpty();
+                    }
+                })
+                .map(new Func1<List<Definition>, Result>() {
+                    @Override
+                    public Result call(List<Definition> definitions) {
+                        mStore.put(key, definitions);
+                        Result result = new Result(key, definitions);
+                        mRegistry.put(result);
+                        return result;
+                    }
+                })
+                .doOnTerminate(new Action0() {
+                    @Override
+                    public void call() {
+                        mInFlight.remove(key);
+                    }
+                })
+                .cache();
+        Observable<Result> existing = mInFlight.putIfAbsent(key, request);
+        return existing != null ? existing : request;
+    }
+
+}
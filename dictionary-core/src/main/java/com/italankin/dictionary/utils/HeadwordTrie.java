@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import java.util.Arrays;
+
+/**
+ * Compact prefix tree of looked up words, used for autocompletion. Nodes are stored in parallel
+ * arrays, every node keeps the best score of its subtree, so top-ranked completions are found
+ * without visiting subtrees, which can't beat the already found ones.
+ * <p>
+ * Words are ranked by frecency: every lookup increases word's frequency and moves it to the
+ * most recent position. Queries do not allocate memory. Removed words leave their nodes in
+ * place, nodes are rebuilt when removed words take up too much space. Methods are thread-safe.
+ */
+public class HeadwordTrie {
+
+    /**
+     * Weight of the single lookup compared to recency. Word looked up twice outranks words
+     * looked up once within the last {@code FREQUENCY_WEIGHT} lookups.
+     */
+    private static final int FREQUENCY_WEIGHT = 16;
+    /**
+     * Rebuild nodes, when removed words exceed this fraction of all words
+     */
+    private static final float PURGE_RATIO = 0.25f;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // nodes
+    private char[] mLabels = new char[64];
+    private int[] mFirstChild = new int[64];
+    private int[] mNextSibling = new int[64];
+    private int[] mWord = new int[64];
+    private int[] mBest = new int[64];
+    private int mNodeCount = 0;
+
+    // words
+    private String[] mWords = new String[16];
+    private int[] mCounts = new int[16];
+    private int[] mTicks = new int[16];
+    private int mWordCount = 0;
+    private int mRemovedCount = 0;
+    private int mTick = 0;
+
+    // query buffers
+    private int[] mStack = new int[128];
+    private int[] mTopWords = new int[0];
+    private int[] mTopScores = new int[0];
+
+    public HeadwordTrie() {
+        newNode('\0');
+    }
+
+    /**
+     * Add lookup of the word.
+     *
+     * @param word lower case word
+     */
+    public synchronized void add(String word) {
+        add(word, 1);
+    }
+
+    /**
+     * Add several lookups of the word at once, e.g. when restoring saved counts. The word
+     * becomes the most recent one.
+     *
+     * @param word  lower case word
+     * @param count number of lookups
+     */
+    public synchronized void add(String word, int count) {
+        if (word.isEmpty() || count <= 0) {
+            return;
+        }
+        put(word, count, ++mTick);
+    }
+
+    /**
+     * Remove the word, it will no longer be completed.
+     *
+     * @param word lower case word
+     */
+    public synchronized void remove(String word) {
+        int node = ROOT;
+        for (int i = 0, length = word.length(); i < length && node != NONE; i++) {
+            node = findChild(node, word.charAt(i));
+        }
+        if (node == NONE || node == ROOT || mWord[node] == NONE) {
+            return;
+        }
+        // best scores along the path are left as is, they are still valid upper bounds
+        mWords[mWord[node]] = null;
+        mWord[node] = NONE;
+        mRemovedCount++;
+        if (mRemovedCount > mWordCount * PURGE_RATIO) {
+            purge();
+        }
+    }
+
+    /**
+     * Find best ranked words starting with the {@code prefix}, excluding the {@code prefix} itself.
+     *
+     * @param prefix prefix, case insensitive, or empty string for the best ranked words overall
+     * @param out    array to fill with words, best first
+     * @return number of words written to {@code out}
+     */
+    public synchronized int complete(CharSequence prefix, String[] out) {
+        int limit = out.length;
+        if (limit == 0) {
+            return 0;
+        }
+        int start = ROOT;
+        for (int i = 0, length = prefix.length(); i < length && start != NONE; i++) {
+            start = findChild(start, Character.toLowerCase(prefix.charAt(i)));
+        }
+        if (start == NONE) {
+            return 0;
+        }
+        if (mTopWords.length < limit) {
+            mTopWords = new int[limit];
+            mTopScores = new int[limit];
+        }
+        int found = 0;
+        int top = 0;
+        mStack[top++] = mFirstChild[start];
+        while (top > 0) {
+            int node = mStack[--top];
+            if (node == NONE) {
+                continue;
+            }
+            // siblings are visited later, children right now
+            mStack[top++] = mNextSibling[node];
+            if (found == limit && mBest[node] <= mTopScores[found - 1]) {
+                // nothing in this subtree can make it to the top
+                continue;
+            }
+            int w = mWord[node];
+            if (w != NONE) {
+                found = insertTop(w, score(w), found, limit);
+            }
+            mStack[top++] = mFirstChild[node];
+        }
+        for (int i = 0; i < found; i++) {
+            out[i] = mWords[mTopWords[i]];
+        }
+        return found;
+    }
+
+    /**
+     * @return number of words
+     */
+    public synchronized int size() {
+        return mWordCount - mRemovedCount;
+    }
+
+    private void put(String word, int count, int tick) {
+        int node = ROOT;
+        for (int i = 0, length = word.length(); i < length; i++) {
+            char c = word.charAt(i);
+            int child = findChild(node, c);
+            if (child == NONE) {
+                child = newNode(c);
+                mNextSibling[child] = mFirstChild[node];
+                mFirstChild[node] = child;
+            }
+            node = child;
+        }
+        int w = mWord[node];
+        if (w == NONE) {
+            w = newWord(word);
+            mWord[node] = w;
+        }
+        mCounts[w] += count;
+        mTicks[w] = tick;
+        int score = score(w);
+        // score never decreases, so it's enough to raise the best scores along the path
+        node = ROOT;
+        mBest[node] = Math.max(mBest[node], score);
+        for (int i = 0, length = word.length(); i < length; i++) {
+            node = findChild(node, word.charAt(i));
+            mBest[node] = Math.max(mBest[node], score);
+        }
+    }
+
+    /**
+     * Rebuild nodes without removed words, keeping counts and recency of the remaining ones.
+     */
+    private void purge() {
+        String[] words = mWords;
+        int[] counts = mCounts;
+        int[] ticks = mTicks;
+        int wordCount = mWordCount;
+        mNodeCount = 0;
+        newNode('\0');
+        mWords = new String[words.length];
+        mCounts = new int[words.length];
+        mTicks = new int[words.length];
+        mWordCount = 0;
+        mRemovedCount = 0;
+        for (int w = 0; w < wordCount; w++) {
+            if (words[w] != null) {
+                put(words[w], counts[w], ticks[w]);
+            }
+        }
+    }
+
+    /**
+     * Insert word into the sorted top list, dropping the worst one if the list is full.
+     *
+     * @return new size of the list
+     */
+    private int insertTop(int word, int score, int size, int limit) {
+        int i = size;
+        if (size == limit) {
+            if (score <= mTopScores[size - 1]) {
+                return size;
+            }
+            i--;
+        } else {
+            size++;
+        }
+        while (i > 0 && mTopScores[i - 1] < score) {
+            mTopScores[i] = mTopScores[i - 1];
+            mTopWords[i] = mTopWords[i - 1];
+            i--;
+        }
+        mTopScores[i] = score;
+        mTopWords[i] = word;
+        return size;
+    }
+
+    private int score(int word) {
+        return mTicks[word] + mCounts[word] * FREQUENCY_WEIGHT;
+    }
+
+    private int findChild(int node, char c) {
+        for (int child = mFirstChild[node]; child != NONE; child = mNextSibling[child]) {
+            if (mLabels[child] == c) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int newNode(char label) {
+        if (mNodeCount == mLabels.length) {
+            int size = mNodeCount * 2;
+            mLabels = Arrays.copyOf(mLabels, size);
+            mFirstChild = Arrays.copyOf(mFirstChild, size);
+            mNextSibling = Arrays.copyOf(mNextSibling, size);
+            mWord = Arrays.copyOf(mWord, size);
+            mBest = Arrays.copyOf(mBest, size);
+            // every node occupies at most two stack slots: itself and its sibling
+            mStack = new int[size * 2];
+        }
+        int node = mNodeCount++;
+        mLabels[node] = label;
+        mFirstChild[node] = NONE;
+        mNextSibling[node] = NONE;
+        mWord[node] = NONE;
+        mBest[node] = 0;
+        return node;
+    }
+
+    private int newWord(String word) {
+        if (mWordCount == mWords.length) {
+            int size = mWordCount * 2;
+            mWords = Arrays.copyOf(mWords, size);
+            mCounts = Arrays.copyOf(mCounts, size);
+            mTicks = Arrays.copyOf(mTicks, size);
+        }
+        int w = mWordCount++;
+        mWords[w] = word;
+        mCounts[w] = 0;
+        return w;
+    }
+
+}
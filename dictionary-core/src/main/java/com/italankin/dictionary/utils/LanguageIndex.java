@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.Language;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable index of languages for the language picker. Languages are ordered once by
+ * {@link CollationKey}s of their localized names, and a sorted table of name and code prefixes
+ * allows filtering without sorting. Favorites always come first, both groups keep
+ * the collation order.
+ * <p>
+ * Matching is case and diacritics insensitive, query matches a language, if it is a prefix of
+ * its code, its name, or any word of its name.
+ */
+public class LanguageIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    /**
+     * Languages in collation order of their names
+     */
+    private final Language[] mLanguages;
+
+    /**
+     * Sorted searchable strings: codes, names and name suffixes starting at word boundaries
+     */
+    private final String[] mTokens;
+    /**
+     * Position in {@link #mLanguages} of the language of every token
+     */
+    private final int[] mTokenLanguages;
+
+    /**
+     * Locale used for normalization of names and queries
+     */
+    private final Locale mLocale;
+
+    /**
+     * Build index. Should be called from background thread.
+     *
+     * @param languages list of languages
+     * @param locale    locale of the language names
+     */
+    public LanguageIndex(List<Language> languages, Locale locale) {
+        mLocale = locale;
+        Collator collator = Collator.getInstance(locale);
+        collator.setStrength(Collator.SECONDARY);
+        int count = languages.size();
+        final CollationKey[] keys = new CollationKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = collator.getCollationKey(languages.get(i).getName());
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return keys[lhs].compareTo(keys[rhs]);
+            }
+        });
+        mLanguages = new Language[count];
+        List<Token> tokens = new ArrayList<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            Language language = languages.get(order[i]);
+            mLanguages[i] = language;
+            tokens.add(new Token(normalize(language.getCode(), locale), i));
+            String name = normalize(language.getName(), locale);
+            for (int start = 0; start < name.length(); start++) {
+                if (start == 0 || !Character.isLetterOrDigit(name.charAt(start - 1))) {
+                    if (Character.isLetterOrDigit(name.charAt(start))) {
+                        tokens.add(new Token(name.substring(start), i));
+                    }
+                }
+            }
+        }
+        Token[] sorted = tokens.toArray(new Token[tokens.size()]);
+        Arrays.sort(sorted);
+        mTokens = new String[sorted.length];
+        mTokenLanguages = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            mTokens[i] = sorted[i].text;
+            mTokenLanguages[i] = sorted[i].language;
+        }
+    }
+
+    /**
+     * @return number of languages
+     */
+    public int size() {
+        return mLanguages.length;
+    }
+
+    /**
+     * Find languages matching the query. Takes time linear to the number of languages,
+     * no sorting is performed.
+     *
+     * @param query query, empty string matches all languages
+     * @return matching languages, favorites first
+     */
+    public List<Language> filter(CharSequence query) {
+        String q = normalize(query.toString(), mLocale);
+        boolean[] matched = null;
+        if (!q.isEmpty()) {
+            matched = new boolean[mLanguages.length];
+            int i = lowerBound(q);
+            while (i < mTokens.length && mTokens[i].startsWith(q)) {
+                matched[mTokenLanguages[i]] = true;
+                i++;
+            }
+        }
+        List<Language> result = new ArrayList<>(mLanguages.length);
+        collect(result, matched, true);
+        collect(result, matched, false);
+        return result;
+    }
+
+    /**
+     * Reorder {@code list} the same way as {@link #filter(CharSequence)} does with an empty
+     * query. List is updated in place, so adapters may keep referencing it.
+     *
+     * @param list list of the indexed languages
+     */
+    public void order(List<Language> list) {
+        List<Language> ordered = filter("");
+        list.clear();
+        list.addAll(ordered);
+    }
+
+    private void collect(List<Language> out, boolean[] matched, boolean favorites) {
+        for (int i = 0; i < mLanguages.length; i++) {
+            Language l = mLanguages[i];
+            if (l.isFavorite() == favorites && (matched == null || matched[i])) {
+                out.add(l);
+            }
+        }
+    }
+
+    /**
+     * @return index of the first token, which is not less than {@code s}
+     */
+    private int lowerBound(String s) {
+        int low = 0, high = mTokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTokens[mid].compareTo(s) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalize(String s, Locale locale) {
+        String decomposed = Normalizer.normalize(s.trim().toLowerCase(locale), Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    private static class Token implements Comparable<Token> {
+        final String text;
+        final int language;
+
+        Token(String text, int language) {
+            this.text = text;
+            this.language = language;
+        }
+
+        @Override
+        public int compareTo(Token another) {
+            return text.compareTo(another.text);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+/**
+ * Debug logging for the platform independent code. Messages are dropped, unless the platform
+ * has set its {@link Printer}.
+ */
+public final class Logger {
+
+    private static volatile Printer sPrinter;
+
+    private Logger() {
+    }
+
+    /**
+     * Set printer for log messages.
+     *
+     * @param printer printer or {@code null} to disable logging
+     */
+    public static void setPrinter(Printer printer) {
+        sPrinter = printer;
+    }
+
+    public static void d(String tag, String message) {
+        Printer printer = sPrinter;
+        if (printer != null) {
+            printer.d(tag, message);
+        }
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        Printer printer = sPrinter;
+        if (printer != null) {
+            printer.e(tag, message, throwable);
+        }
+    }
+
+    /**
+     * Destination of log messages.
+     */
+    public interface Printer {
+        void d(String tag, String message);
+
+        void e(String tag, String message, Throwable throwable);
+    }
+
+}
@@ -0,0 +1,707 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rx.Observable;
+import rx.Subscriber;
+
+/**
+ * Local storage of lookup results. Every result is stored in a separate file, named after
+ * the hash of its {@link LookupKey}, and compressed with {@link PayloadCodec}.
+ * <p>
+ * Number of stored results is limited, least recently used results are evicted. Modification
+ * time of the file is its last use, so the order survives restarts.
+ * <p>
+ * Storing a result does not count as its use: prefetched and imported results are stored too.
+ * Lookups served to the user are recorded with {@link #recordUse(LookupKey)}, they rank
+ * autocompletion and corrections. Counts are appended to the usage log next to the storage
+ * directory.
+ */
+public class LookupStore {
+
+    /**
+     * Default name of the storage directory
+     */
+    public static final String DIR_NAME = "lookups";
+    /**
+     * Default maximum number of stored results
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 5000;
+    /**
+     * Suffix of the usage log file name
+     */
+    private static final String USAGE_SUFFIX = ".usage";
+    /**
+     * Usage log is rewritten, when it has this many times more records than used keys
+     */
+    private static final int USAGE_COMPACT_RATIO = 4;
+    private static final String CHARSET = "UTF-8";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File mDir;
+    private final File mUsageFile;
+    private final int mMaxEntries;
+    private final Gson mGson = new Gson();
+
+    /**
+     * Index of stored translations, created on first access
+     */
+    private TranslationIndex mIndex;
+    /**
+     * Corrector over stored words, created on first access
+     */
+    private SpellingCorrector mCorrector;
+    /**
+     * Autocompletion tries per source language, created on first access
+     */
+    private final ConcurrentHashMap<String, HeadwordTrie> mTries = new ConcurrentHashMap<>();
+    /**
+     * Stored keys, least recently used first, created on first access
+     */
+    private LinkedHashMap<LookupKey, File> mEntries;
+    /**
+     * Lookup counts of used stored keys, least recently used first, created on first access
+     */
+    private LinkedHashMap<LookupKey, int[]> mUsage;
+    /**
+     * Number of records in the usage log
+     */
+    private int mUsageRecords;
+    /**
+     * Whether in-memory structures were built from files
+     */
+    private volatile boolean mLoaded = false;
+
+    /**
+     * @param dir storage directory, created on first write
+     */
+    public LookupStore(File dir) {
+        this(dir, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param dir        storage directory, created on first write
+     * @param maxEntries maximum number of stored results
+     */
+    public LookupStore(File dir, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries <= 0");
+        }
+        mDir = dir;
+        mUsageFile = new File(dir.getPath() + USAGE_SUFFIX);
+        mMaxEntries = maxEntries;
+    }
+
+    /**
+     * Save lookup result on disk. Result is not counted as used. Should be called from
+     * background thread.
+     *
+     * @param key         lookup key
+     * @param definitions result definitions
+     * @return {@code true}, if result was saved
+     */
+    public boolean put(LookupKey key, List<Definition> definitions) {
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            return false;
+        }
+        Entry entry = new Entry();
+        entry.lang = key.lang;
+        entry.text = key.text;
+        entry.flags = key.flags;
+        entry.def = definitions;
+        File file = getFile(key);
+        File tmp = new File(mDir, file.getName() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tmp);
+            out.write(PayloadCodec.encode(mGson.toJson(entry).getBytes(CHARSET)));
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                return false;
+            }
+            synchronized (this) {
+                // loading in progress may have missed the new file, so wait for it to finish
+                if (mLoaded) {
+                    mIndex.put(key, definitions);
+                    mCorrector.add(key);
+                    mEntries.put(key, file);
+                    trim();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            Logger.e("LookupStore", "put: ", e);
+            return false;
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Record lookup of the stored result, which was served to the user, no matter whether it
+     * came from the network, memory or disk. Should be called from background thread.
+     *
+     * @param key lookup key
+     */
+    public void recordUse(LookupKey key) {
+        load();
+        File file;
+        synchronized (this) {
+            file = mEntries.get(key);
+            if (file == null) {
+                // evicted already
+                return;
+            }
+            int[] count = mUsage.get(key);
+            if (count == null) {
+                count = new int[1];
+                mUsage.put(key, count);
+            }
+            count[0]++;
+            addHeadword(mTries, key, 1);
+            mCorrector.use(key, 1);
+            appendUsage(key);
+        }
+        touch(key, file);
+    }
+
+    /**
+     * Read lookup result from disk.
+     *
+     * @param key lookup key
+     * @return {@link Observable} emitting stored definitions, or completing without emissions,
+     * if there is no result for the {@code key}
+     */
+    public Observable<List<Definition>> get(final LookupKey key) {
+        return Observable.create(new Observable.OnSubscribe<List<Definition>>() {
+            @Override
+            public void call(Subscriber<? super List<Definition>> subscriber) {
+                List<Definition> result;
+                try {
+                    result = read(key);
+                } catch (Exception e) {
+                    subscriber.onError(e);
+                    return;
+                }
+                if (result != null && !subscriber.isUnsubscribed()) {
+                    subscriber.onNext(result);
+                }
+                if (!subscriber.isUnsubscribed()) {
+                    subscriber.onCompleted();
+                }
+            }
+        });
+    }
+
+    /**
+     * Check if result exists on disk.
+     *
+     * @param key lookup key
+     * @return {@code true}, if there is a result for the {@code key}
+     */
+    public boolean contains(LookupKey key) {
+        return getFile(key).exists();
+    }
+
+    /**
+     * Import lookup results from the word pack. Results, which are already stored, are kept.
+     * Pack is read sequentially, so it's never loaded into memory entirely. Should be called
+     * from background thread.
+     *
+     * @param in pack stream, see {@link PackReader} for the format
+     * @return number of imported results
+     * @throws IOException if pack is broken or cannot be read
+     */
+    public int importPack(InputStream in) throws IOException {
+        PackReader reader = new PackReader(in);
+        try {
+            Type type = new TypeToken<List<Definition>>() {}.getType();
+            int imported = 0;
+            while (reader.next()) {
+                LookupKey key = new LookupKey(reader.getLang(), reader.text(), reader.getFlags());
+                if (contains(key)) {
+                    continue;
+                }
+                Reader json = new InputStreamReader(
+                        new ByteArrayInputStream(reader.data(), 0, reader.dataSize()), CHARSET);
+                List<Definition> definitions = mGson.fromJson(json, type);
+                if (definitions != null && !definitions.isEmpty() && put(key, definitions)) {
+                    imported++;
+                }
+            }
+            Logger.d("LookupStore", "importPack: " + imported + " of " + reader.getCount());
+            return imported;
+        } catch (JsonParseException e) {
+            throw new IOException(e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Search stored lookups by words of their translations.
+     *
+     * @param query search query, see {@link TranslationIndex#search(String, int)}
+     * @param limit maximum number of hits
+     * @return {@link Observable} emitting list of hits
+     */
+    public Observable<List<TranslationIndex.Hit>> search(final String query, final int limit) {
+        return Observable.fromCallable(new Callable<List<TranslationIndex.Hit>>() {
+            @Override
+            public List<TranslationIndex.Hit> call() throws Exception {
+                return getIndex().search(query, limit);
+            }
+        });
+    }
+
+    /**
+     * Suggest corrections for the misspelled lookup.
+     *
+     * @param key   lookup key, which returned no results
+     * @param limit maximum number of suggestions
+     * @return {@link Observable} emitting list of suggestions
+     */
+    public Observable<List<SpellingCorrector.Suggestion>> suggest(final LookupKey key, final int limit) {
+        return Observable.fromCallable(new Callable<List<SpellingCorrector.Suggestion>>() {
+            @Override
+            public List<SpellingCorrector.Suggestion> call() throws Exception {
+                return getCorrector().suggest(key.lang, key.text, limit);
+            }
+        });
+    }
+
+    /**
+     * Get keys of stored results, building in-memory structures on first access. Should be
+     * called from background thread.
+     *
+     * @return keys of stored results, least recently used first
+     */
+    public List<LookupKey> keys() {
+        load();
+        synchronized (this) {
+            return new ArrayList<>(mEntries.keySet());
+        }
+    }
+
+    /**
+     * Get index of stored translations, building it from files on first access. Should be
+     * called from background thread.
+     *
+     * @return index
+     */
+    public TranslationIndex getIndex() {
+        load();
+        return mIndex;
+    }
+
+    /**
+     * Get corrector over stored words, building it from files on first access. Should be
+     * called from background thread.
+     *
+     * @return corrector
+     */
+    public SpellingCorrector getCorrector() {
+        load();
+        return mCorrector;
+    }
+
+    /**
+     * Find stored words starting with {@code prefix}. Does not block: if stored files are not
+     * loaded yet, nothing is found.
+     *
+     * @param sourceLang source language code
+     * @param prefix     prefix, case insensitive, or empty string for the best ranked words
+     * @param out        array to fill with words, best ranked first
+     * @return number of words written to {@code out}
+     * @see #preload()
+     */
+    public int complete(String sourceLang, CharSequence prefix, String[] out) {
+        HeadwordTrie trie = mTries.get(sourceLang);
+        return trie != null ? trie.complete(prefix, out) : 0;
+    }
+
+    /**
+     * Build in-memory structures from stored files. Should be called from background thread.
+     */
+    public void preload() {
+        load();
+    }
+
+    private static void addHeadword(Map<String, HeadwordTrie> tries, LookupKey key, int count) {
+        String sourceLang = sourceLang(key);
+        HeadwordTrie trie = tries.get(sourceLang);
+        if (trie == null) {
+            trie = new HeadwordTrie();
+            tries.put(sourceLang, trie);
+        }
+        trie.add(key.text, count);
+    }
+
+    private static String sourceLang(LookupKey key) {
+        int i = key.lang.indexOf('-');
+        return i > 0 ? key.lang.substring(0, i) : key.lang;
+    }
+
+    /**
+     * Evict least recently used results, until their number fits the limit. Must be called
+     * with the lock held, after loading.
+     */
+    private void trim() {
+        Iterator<Map.Entry<LookupKey, File>> it = mEntries.entrySet().iterator();
+        while (mEntries.size() > mMaxEntries && it.hasNext()) {
+            Map.Entry<LookupKey, File> eldest = it.next();
+            it.remove();
+            LookupKey key = eldest.getKey();
+            if (!eldest.getValue().delete()) {
+                Logger.d("LookupStore", "trim: delete failed: " + key);
+            }
+            mIndex.remove(key);
+            mCorrector.remove(key);
+            if (mUsage.remove(key) != null) {
+                removeHeadword(key);
+            }
+        }
+    }
+
+    /**
+     * Remove headword of the evicted result from autocompletion, unless it's still used for
+     * another direction or with other flags.
+     */
+    private void removeHeadword(LookupKey key) {
+        String sourceLang = sourceLang(key);
+        HeadwordTrie trie = mTries.get(sourceLang);
+        if (trie == null) {
+            return;
+        }
+        for (LookupKey other : mUsage.keySet()) {
+            if (other.text.equals(key.text) && sourceLang(other).equals(sourceLang)) {
+                return;
+            }
+        }
+        trie.remove(key.text);
+    }
+
+    /**
+     * Mark stored result as recently used.
+     */
+    private void touch(LookupKey key, File file) {
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            Logger.d("LookupStore", "touch: failed: " + key);
+        }
+        synchronized (this) {
+            if (mLoaded) {
+                // access order
+                mEntries.get(key);
+            }
+        }
+    }
+
+    /**
+     * Build in-memory structures from stored files, if they were not built yet.
+     */
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (mLoaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            TranslationIndex index = new TranslationIndex();
+            SpellingCorrector corrector = new SpellingCorrector();
+            HashMap<String, HeadwordTrie> tries = new HashMap<>();
+            LinkedHashMap<LookupKey, File> entries = new LinkedHashMap<>(16, 0.75f, true);
+            File[] files = mDir.listFiles();
+            if (files != null) {
+                // oldest first, so autocompletion will rank recent lookups higher
+                Arrays.sort(files, new Comparator<File>() {
+                    @Override
+                    public int compare(File lhs, File rhs) {
+                        long l = lhs.lastModified(), r = rhs.lastModified();
+                        return l < r ? -1 : (l == r ? 0 : 1);
+                    }
+                });
+                // results stored before loading may exceed the limit, evict them unread
+                int excess = files.length - mMaxEntries;
+                for (File file : files) {
+                    if (file.getName().endsWith(".tmp")) {
+                        // not a result, but counted in the excess
+                        excess--;
+                        continue;
+                    }
+                    if (excess-- > 0) {
+                        if (!file.delete()) {
+                            Logger.d("LookupStore", "load: delete failed: " + file);
+                        }
+                        continue;
+                    }
+                    Entry entry = readEntry(file);
+                    if (entry != null && entry.def != null) {
+                        LookupKey key = entry.key();
+                        index.put(key, entry.def);
+                        corrector.add(key);
+                        entries.put(key, file);
+                    }
+                }
+            }
+            LinkedHashMap<LookupKey, int[]> usage = new LinkedHashMap<>(16, 0.75f, true);
+            int records = readUsage(entries, usage);
+            // least recently used first, so autocompletion will rank recent lookups higher
+            for (Map.Entry<LookupKey, int[]> e : usage.entrySet()) {
+                addHeadword(tries, e.getKey(), e.getValue()[0]);
+                corrector.use(e.getKey(), e.getValue()[0]);
+            }
+            mUsage = usage;
+            mUsageRecords = records;
+            if (records < 0 || records > usage.size() * USAGE_COMPACT_RATIO) {
+                writeUsage();
+            }
+            mEntries = entries;
+            mIndex = index;
+            mCorrector = corrector;
+            mTries.putAll(tries);
+            mLoaded = true;
+            Logger.d("LookupStore", "load: " + index.size() + " documents in " +
+                    (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+
+    /**
+     * Read counts of the stored keys from the usage log. If there is no log yet, every stored
+     * result is counted as used once, so words looked up before counting are still completed.
+     *
+     * @param entries stored keys
+     * @param usage   map to fill with counts, in order of the last use
+     * @return number of records in the log, or {@code -1}, if there is no log
+     */
+    private int readUsage(Map<LookupKey, File> entries, Map<LookupKey, int[]> usage) {
+        if (!mUsageFile.exists()) {
+            for (LookupKey key : entries.keySet()) {
+                usage.put(key, new int[]{1});
+            }
+            return -1;
+        }
+        int records = 0;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mUsageFile), CHARSET));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records++;
+                // count, flags, lang, text
+                String[] parts = line.split("\t", 4);
+                if (parts.length < 4) {
+                    continue;
+                }
+                LookupKey key;
+                int count;
+                try {
+                    count = Integer.parseInt(parts[0]);
+                    key = new LookupKey(parts[2], parts[3], Integer.parseInt(parts[1]));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (count <= 0 || !entries.containsKey(key)) {
+                    continue;
+                }
+                int[] total = usage.get(key);
+                if (total == null) {
+                    total = new int[1];
+                    usage.put(key, total);
+                }
+                total[0] += count;
+            }
+        } catch (IOException e) {
+            Logger.e("LookupStore", "readUsage: ", e);
+        } finally {
+            closeQuietly(reader);
+        }
+        return records;
+    }
+
+    /**
+     * Append a single use to the usage log. Must be called with the lock held.
+     */
+    private void appendUsage(LookupKey key) {
+        if (mUsageRecords >= mUsage.size() * USAGE_COMPACT_RATIO) {
+            writeUsage();
+            return;
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(mUsageFile, true);
+            out.write(usageRecord(key, 1).getBytes(CHARSET));
+            mUsageRecords++;
+        } catch (IOException e) {
+            Logger.e("LookupStore", "appendUsage: ", e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Rewrite the usage log with a single record per used key. Must be called with the lock
+     * held, after loading.
+     */
+    private void writeUsage() {
+        File tmp = new File(mUsageFile.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<LookupKey, int[]> e : mUsage.entrySet()) {
+                sb.append(usageRecord(e.getKey(), e.getValue()[0]));
+            }
+            out = new FileOutputStream(tmp);
+            out.write(sb.toString().getBytes(CHARSET));
+            out.close();
+            out = null;
+            if (tmp.renameTo(mUsageFile)) {
+                mUsageRecords = mUsage.size();
+            }
+        } catch (IOException e) {
+            Logger.e("LookupStore", "writeUsage: ", e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static String usageRecord(LookupKey key, int count) {
+        // line breaks would split the record
+        String text = key.text.replace('\n', ' ');
+        return count + "\t" + key.flags + "\t" + key.lang + "\t" + text + "\n";
+    }
+
+    private Entry readEntry(File file) {
+        try {
+            return parseEntry(file);
+        } catch (IOException | JsonParseException e) {
+            Logger.e("LookupStore", "readEntry: ", e);
+            return null;
+        }
+    }
+
+    private Entry parseEntry(File file) throws IOException {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] data = PayloadCodec.decode(in);
+            Reader reader = new InputStreamReader(new ByteArrayInputStream(data), CHARSET);
+            return mGson.fromJson(reader, Entry.class);
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private List<Definition> read(LookupKey key) throws IOException {
+        File file = getFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            Entry entry = parseEntry(file);
+            if (entry == null || entry.def == null || !key.equals(entry.key())) {
+                // hash collision or broken file
+                return null;
+            }
+            touch(key, file);
+            return entry.def;
+        } catch (JsonParseException e) {
+            Logger.e("LookupStore", "read: ", e);
+            if (!file.delete()) {
+                Logger.d("LookupStore", "read: delete failed");
+            }
+            return null;
+        }
+    }
+
+    private File getFile(LookupKey key) {
+        return new File(mDir, hash(key.toString()));
+    }
+
+    private static String hash(String s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(s.getBytes(CHARSET));
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Structure of the stored file.
+     */
+    private static class Entry {
+        String lang;
+        String text;
+        int flags;
+        List<Definition> def;
+
+        LookupKey key() {
+            return new LookupKey(lang, text, flags);
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming reader of word packs: files with prefetched lookup results for a list of words.
+ * Pack format (all numbers are big-endian, strings are modified UTF-8 as written by
+ * {@link java.io.DataOutputStream#writeUTF(String)}):
+ * <pre>
+ * header:  "DPAK" | int version | UTF lang | int flags | int count
+ * entries: count * (UTF text | int size | int length | byte[length] deflated JSON of definitions)
+ * index:   count * (UTF text | long offset of the entry)
+ * footer:  long offset of the index
+ * </pre>
+ * Entries are compressed separately, so packs can be read sequentially without loading them into
+ * memory, or randomly using the index at the end of the file.
+ */
+public class PackReader implements Closeable {
+
+    public static final int MAGIC = 0x4450414b; // "DPAK"
+    public static final int VERSION = 1;
+
+    /**
+     * Maximum size of the uncompressed entry
+     */
+    private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
+    private final DataInputStream mInput;
+    private final Inflater mInflater = new Inflater();
+
+    private final String mLang;
+    private final int mFlags;
+    private final int mCount;
+    private int mRead = 0;
+
+    private String mText;
+    private byte[] mCompressed = new byte[4096];
+    private byte[] mData = new byte[16384];
+    private int mDataSize;
+
+    /**
+     * Open pack and read its header.
+     *
+     * @param in pack stream
+     * @throws IOException if stream is not a valid pack
+     */
+    public PackReader(InputStream in) throws IOException {
+        mInput = new DataInputStream(new BufferedInputStream(in));
+        if (mInput.readInt() != MAGIC) {
+            throw new IOException("Not a word pack");
+        }
+        int version = mInput.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported pack version: " + version);
+        }
+        mLang = mInput.readUTF();
+        mFlags = mInput.readInt();
+        mCount = mInput.readInt();
+    }
+
+    /**
+     * @return translation direction of the pack
+     */
+    public String getLang() {
+        return mLang;
+    }
+
+    /**
+     * @return search flags, which results were fetched with
+     */
+    public int getFlags() {
+        return mFlags;
+    }
+
+    /**
+     * @return number of entries in the pack
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Move to the next entry.
+     *
+     * @return {@code false}, if there are no more entries
+     * @throws IOException if read failed
+     */
+    public boolean next() throws IOException {
+        if (mRead == mCount) {
+            return false;
+        }
+        mRead++;
+        mText = mInput.readUTF();
+        int size = mInput.readInt();
+        int length = mInput.readInt();
+        if (size < 0 || size > MAX_ENTRY_SIZE || length < 0 || length > MAX_ENTRY_SIZE) {
+            throw new IOException("Broken entry: " + mText);
+        }
+        if (mCompressed.length < length) {
+            mCompressed = new byte[length];
+        }
+        mInput.readFully(mCompressed, 0, length);
+        if (mData.length < size) {
+            mData = new byte[size];
+        }
+        mInflater.reset();
+        mInflater.setInput(mCompressed, 0, length);
+        try {
+            mDataSize = 0;
+            while (mDataSize < size && !mInflater.finished()) {
+                int n = mInflater.inflate(mData, mDataSize, size - mDataSize);
+                if (n == 0 && (mInflater.needsInput() || mInflater.needsDictionary())) {
+                    break;
+                }
+                mDataSize += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Broken entry: " + mText, e);
+        }
+        if (mDataSize != size) {
+            throw new IOException("Broken entry: " + mText);
+        }
+        return true;
+    }
+
+    /**
+     * @return text of the current entry
+     */
+    public String text() {
+        return mText;
+    }
+
+    /**
+     * @return buffer with UTF-8 JSON array of definitions of the current entry, valid until
+     * the next call of {@link #next()}
+     */
+    public byte[] data() {
+        return mData;
+    }
+
+    /**
+     * @return size of the {@link #data()}
+     */
+    public int dataSize() {
+        return mDataSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInflater.end();
+        mInput.close();
+    }
+
+}
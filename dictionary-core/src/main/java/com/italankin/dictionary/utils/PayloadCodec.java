@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of locally stored JSON payloads. Payloads are deflated with a preset dictionary of
+ * strings, which occur in every API response, so even small payloads compress well. Every payload
+ * is compressed independently and can be decoded without reading any other one.
+ * <p>
+ * Encoded payload format:
+ * <pre>
+ * magic        2 bytes, "DZ"
+ * dictionary   1 byte, id of the preset dictionary
+ * size         4 bytes, big-endian, size of the decoded payload
+ * data         zlib stream
+ * </pre>
+ * Payloads without the magic are treated as not encoded, so files written before compression
+ * was introduced are still readable.
+ */
+public final class PayloadCodec {
+
+    private static final byte MAGIC_0 = 'D';
+    private static final byte MAGIC_1 = 'Z';
+    private static final int HEADER_SIZE = 7;
+
+    /**
+     * Maximum size of the decoded payload
+     */
+    private static final int MAX_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Id of the dictionary used for encoding
+     */
+    private static final int DICTIONARY_ID = 1;
+
+    /**
+     * Preset dictionaries by id, generated by {@code DictionaryBuilder} of the tools module
+     */
+    private static final byte[][] DICTIONARIES = {
+            null,
+            bytes(PayloadDictionary1.VALUE)
+    };
+
+    private PayloadCodec() {
+        // no instances
+    }
+
+    /**
+     * Compress payload.
+     *
+     * @param data payload
+     * @return encoded payload
+     */
+    public static byte[] encode(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARIES[DICTIONARY_ID]);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + data.length / 2 + 16);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(DICTIONARY_ID);
+            out.write(data.length >>> 24);
+            out.write(data.length >>> 16);
+            out.write(data.length >>> 8);
+            out.write(data.length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress payload.
+     *
+     * @param data encoded or not encoded payload
+     * @return decoded payload, or {@code data} itself, if it is not encoded
+     * @throws IOException if payload is broken
+     */
+    public static byte[] decode(byte[] data) throws IOException {
+        if (!isEncoded(data)) {
+            return data;
+        }
+        int id = data[2] & 0xff;
+        if (id >= DICTIONARIES.length || DICTIONARIES[id] == null) {
+            throw new IOException("Unknown dictionary: " + id);
+        }
+        int size = ((data[3] & 0xff) << 24) | ((data[4] & 0xff) << 16) |
+                ((data[5] & 0xff) << 8) | (data[6] & 0xff);
+        if (size < 0 || size > MAX_SIZE) {
+            throw new IOException("Invalid size: " + size);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            byte[] result = new byte[size];
+            // stream may have trailing bytes to process after the whole payload was inflated
+            byte[] spare = new byte[1];
+            int offset = 0;
+            while (!inflater.finished()) {
+                int n = offset < size ? inflater.inflate(result, offset, size - offset) : inflater.inflate(spare);
+                if (n > 0 && offset == size) {
+                    throw new IOException("Payload is larger than " + size);
+                }
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARIES[id]);
+                    } else if (inflater.needsInput() && !inflater.finished()) {
+                        // empty payload finishes with no output at all
+                        throw new IOException("Unexpected end of payload");
+                    }
+                }
+                offset += n;
+            }
+            if (offset != size) {
+                throw new IOException("Size mismatch: " + offset + " != " + size);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Read all bytes of the stream and decompress them.
+     *
+     * @param in stream of the encoded or not encoded payload, not closed by this method
+     * @return decoded payload
+     * @throws IOException if stream cannot be read or payload is broken
+     */
+    public static byte[] decode(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return decode(out.toByteArray());
+    }
+
+    /**
+     * @param data payload
+     * @return {@code true}, if payload was encoded by {@link #encode(byte[])}
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data.length >= HEADER_SIZE && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    private static byte[] bytes(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.italankin.dictionary.utils;
+
+/**
+ * Preset dictionary 1 of {@link PayloadCodec}, generated by DictionaryBuilder from
+ * 192 payloads. Do not edit: payloads encoded with this dictionary can only be
+ * decoded with exactly the same bytes.
+ */
+final class PayloadDictionary1 {
+
+    static final String VALUE = " (ru)\",\"pos\":\"noun\"}]}]}{\"head\":{},\"def\":[{\"text" +
+            "\":\"\",\"pos\":\"noun\",\"tr\":[{\"text\":\"";
+
+    private PayloadDictionary1() {
+        // no instances
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.Language;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import rx.Observable;
+
+/**
+ * Persistent user preferences and cached languages list.
+ */
+public interface Preferences {
+
+    /**
+     * @return current settings snapshot
+     */
+    Settings getSettings();
+
+    /**
+     * @return {@link Observable} emitting the current settings and every subsequent change
+     */
+    Observable<Settings> settings();
+
+    String getSourceLang();
+
+    void setSourceLang(Language lang);
+
+    String getDestLang();
+
+    void setDestLang(Language lang);
+
+    /**
+     * @return {@code true}, if cached languages list is missing or outdated
+     */
+    boolean shouldUpdateLangs();
+
+    void setLangsTimestamp(Date date);
+
+    /**
+     * @return {@link Observable} emitting cached languages list
+     */
+    Observable<List<Language>> getLanguagesList();
+
+    /**
+     * Save languages list. Implementations may defer writing and skip lists equal to the saved
+     * one, favorite flags are not part of the list.
+     *
+     * @param list list of languages
+     */
+    void saveLanguagesList(List<Language> list);
+
+    /**
+     * @return codes of favorite languages, or {@code null}, if favorites were never saved
+     */
+    Set<String> getFavoriteLangs();
+
+    void setFavoriteLangs(Set<String> codes);
+
+}
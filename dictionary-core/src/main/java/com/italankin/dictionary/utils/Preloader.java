@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.Language;
+
+import java.util.List;
+
+import rx.Observable;
+
+/**
+ * Source of data, which may have been loaded ahead of time.
+ */
+public interface Preloader {
+
+    /**
+     * Take cached languages list, loaded in advance. The list is handed out only once,
+     * subsequent consumers should read languages from {@link Preferences}, since they may
+     * have changed.
+     *
+     * @return {@link Observable} emitting cached languages list, or completing without emissions,
+     * if there is no cached list, or {@code null}, if the list has already been taken
+     */
+    Observable<List<Language>> takeLanguages();
+
+}
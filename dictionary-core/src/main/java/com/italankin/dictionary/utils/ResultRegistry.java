@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of recent lookup results, which allows screens to pass results
+ * by their {@link LookupKey} instead of parceling them. The number of results is bounded,
+ * evicted results should be reloaded from {@link LookupStore}.
+ */
+public class ResultRegistry {
+
+    private static final int MAX_SIZE = 16;
+
+    /**
+     * Results in access order, the least recently used first
+     */
+    private final LinkedHashMap<LookupKey, Result> mResults =
+            new LinkedHashMap<LookupKey, Result>(MAX_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LookupKey, Result> eldest) {
+                    return size() > MAX_SIZE;
+                }
+            };
+
+    /**
+     * Register result in the registry.
+     *
+     * @param result result
+     */
+    public synchronized void put(Result result) {
+        mResults.put(result.key, result);
+    }
+
+    /**
+     * @param key lookup key
+     * @return result or {@code null}, if there is no result for the {@code key} in the registry
+     */
+    public synchronized Result get(LookupKey key) {
+        return mResults.get(key);
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import rx.Scheduler;
+
+/**
+ * Schedulers used by presenters. Platforms provide their main thread scheduler, benchmarks
+ * and simulations may substitute all of them.
+ */
+public final class RxSchedulers {
+
+    /**
+     * Scheduler for delivering results to views
+     */
+    public final Scheduler main;
+
+    /**
+     * Scheduler for blocking I/O
+     */
+    public final Scheduler io;
+
+    /**
+     * Scheduler for computational work
+     */
+    public final Scheduler computation;
+
+    public RxSchedulers(Scheduler main, Scheduler io, Scheduler computation) {
+        this.main = main;
+        this.io = io;
+        this.computation = computation;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.api.ApiClient;
+
+/**
+ * Immutable snapshot of user settings. New snapshot is created by {@link SharedPrefs} every time
+ * user changes settings.
+ */
+public final class Settings {
+
+    /**
+     * Search options (bitmask of {@link ApiClient.LookupFlags})
+     */
+    @ApiClient.LookupFlags
+    public final int searchFilter;
+
+    /**
+     * Lookup in reverse direction, if there are no results
+     */
+    public final boolean lookupReverse;
+
+    /**
+     * Show the best stored correction automatically, if lookup returned no results
+     */
+    public final boolean autoCorrect;
+
+    /**
+     * Lookup in all favorite languages at once
+     */
+    public final boolean multiTarget;
+
+    /**
+     * Prefetch frequent words in background
+     */
+    public final boolean prefetch;
+
+    /**
+     * Move focus to the search field on Back press
+     */
+    public final boolean backFocusSearch;
+
+    /**
+     * Close main screen after sharing result
+     */
+    public final boolean closeOnShare;
+
+    /**
+     * Append transcription to the shared text
+     */
+    public final boolean shareIncludeTranscription;
+
+    /**
+     * Show quick share button
+     */
+    public final boolean showShareFab;
+
+    public Settings(@ApiClient.LookupFlags int searchFilter, boolean lookupReverse, boolean autoCorrect,
+            boolean multiTarget, boolean prefetch, boolean backFocusSearch, boolean closeOnShare,
+            boolean shareIncludeTranscription, boolean showShareFab) {
+        this.searchFilter = searchFilter;
+        this.lookupReverse = lookupReverse;
+        this.autoCorrect = autoCorrect;
+        this.multiTarget = multiTarget;
+        this.prefetch = prefetch;
+        this.backFocusSearch = backFocusSearch;
+        this.closeOnShare = closeOnShare;
+        this.shareIncludeTranscription = shareIncludeTranscription;
+        this.showShareFab = showShareFab;
+    }
+
+}
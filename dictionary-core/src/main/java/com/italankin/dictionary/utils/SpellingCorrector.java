@@ -0,0 +1,394 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.LookupKey;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Offline spelling correction over the words of stored lookups. Words are kept in
+ * a BK-tree per translation direction, so candidates within a small edit distance are found
+ * without scanning all words. Trees are built with Damerau-Levenshtein distance, which is
+ * a metric, candidates are ranked by optimal string alignment distance. Removed words are kept in trees as markers and dropped, when
+ * they take up too much space. Methods are thread-safe.
+ */
+public class SpellingCorrector {
+
+    /**
+     * Words of this length or shorter are corrected with at most one edit
+     */
+    private static final int SHORT_WORD_LENGTH = 4;
+    /**
+     * Rebuild trees, when removed words exceed this fraction of all words
+     */
+    private static final float PURGE_RATIO = 0.25f;
+
+    private final HashMap<String, Node> mTrees = new HashMap<>();
+    private int mNodeCount = 0;
+    private int mRemovedCount = 0;
+
+    /**
+     * Distance calculation buffers, reused between calls
+     */
+    private int[] mPrevPrev = new int[16];
+    private int[] mPrev = new int[16];
+    private int[] mCurr = new int[16];
+    private int[] mMatrix = new int[64];
+    /**
+     * Last row of every character of the first string, used by {@link #metricDistance(String, String)}
+     */
+    private final HashMap<Character, Integer> mLastRows = new HashMap<>();
+
+    /**
+     * Add word of the stored lookup. Adding the same word again does not change its frequency.
+     *
+     * @param key lookup key
+     */
+    public synchronized void add(LookupKey key) {
+        insert(key, 0);
+    }
+
+    /**
+     * Increase frequency of the word, adding it if needed.
+     *
+     * @param key   lookup key
+     * @param count number of lookups
+     */
+    public synchronized void use(LookupKey key, int count) {
+        insert(key, count);
+    }
+
+    /**
+     * Remove word of the lookup, which is no longer stored.
+     *
+     * @param key lookup key
+     */
+    public synchronized void remove(LookupKey key) {
+        Node node = mTrees.get(key.lang);
+        while (node != null) {
+            int d = metricDistance(key.text, node.word);
+            if (d == 0) {
+                break;
+            }
+            node = node.child(d);
+        }
+        if (node == null || node.removed) {
+            return;
+        }
+        if (!node.key.equals(key)) {
+            // word was stored again with other flags
+            return;
+        }
+        node.removed = true;
+        mRemovedCount++;
+        if (mRemovedCount > mNodeCount * PURGE_RATIO) {
+            purge();
+        }
+    }
+
+    private void insert(LookupKey key, int count) {
+        String word = key.text;
+        if (word.isEmpty()) {
+            return;
+        }
+        Node node = mTrees.get(key.lang);
+        if (node == null) {
+            mTrees.put(key.lang, newNode(key, count));
+            return;
+        }
+        while (true) {
+            int d = metricDistance(word, node.word);
+            if (d == 0) {
+                if (node.removed) {
+                    node.removed = false;
+                    node.count = 0;
+                    mRemovedCount--;
+                }
+                node.key = key;
+                node.count += count;
+                return;
+            }
+            Node child = node.child(d);
+            if (child == null) {
+                node.addChild(d, newNode(key, count));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private Node newNode(LookupKey key, int count) {
+        Node node = new Node(key.text, key);
+        node.count = count;
+        mNodeCount++;
+        return node;
+    }
+
+    /**
+     * Rebuild trees without removed words.
+     */
+    private void purge() {
+        ArrayList<Node> live = new ArrayList<>(mNodeCount - mRemovedCount);
+        ArrayList<Node> queue = new ArrayList<>(mTrees.values());
+        while (!queue.isEmpty()) {
+            Node node = queue.remove(queue.size() - 1);
+            if (!node.removed) {
+                live.add(node);
+            }
+            for (int i = 0; i < node.size; i++) {
+                queue.add(node.children[i]);
+            }
+        }
+        mTrees.clear();
+        mNodeCount = 0;
+        mRemovedCount = 0;
+        for (Node node : live) {
+            insert(node.key, node.count);
+        }
+    }
+
+    /**
+     * Find stored words similar to the {@code text}.
+     *
+     * @param lang  translation direction
+     * @param text  misspelled word
+     * @param limit maximum number of suggestions
+     * @return suggestions, closest and most frequently looked up first
+     */
+    public synchronized List<Suggestion> suggest(String lang, String text, int limit) {
+        Node root = mTrees.get(lang);
+        if (root == null || text.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int maxDistance = text.length() <= SHORT_WORD_LENGTH ? 1 : 2;
+        List<Suggestion> result = new ArrayList<>();
+        ArrayList<Node> queue = new ArrayList<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.remove(queue.size() - 1);
+            int d = metricDistance(text, node.word);
+            if (d > 0 && d <= maxDistance && !node.removed) {
+                // metric distance never exceeds alignment distance, which ranks suggestions
+                int alignment = distance(text, node.word, maxDistance);
+                if (alignment <= maxDistance) {
+                    result.add(new Suggestion(node.key, alignment, node.count));
+                }
+            }
+            // triangle inequality: only children within [d - max, d + max] can match
+            for (int i = 0; i < node.size; i++) {
+                int childDistance = node.distances[i];
+                if (childDistance >= d - maxDistance && childDistance <= d + maxDistance) {
+                    queue.add(node.children[i]);
+                }
+            }
+        }
+        Collections.sort(result, Suggestion.ORDER);
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * Damerau-Levenshtein distance: number of insertions, deletions, substitutions and
+     * transpositions of adjacent characters, where transposed characters may be edited further.
+     * Unlike {@link #distance(String, String, int)}, it satisfies the triangle inequality, so
+     * it's used as the metric of the trees.
+     *
+     * @param a first string
+     * @param b second string
+     * @return distance
+     */
+    private int metricDistance(String a, String b) {
+        int la = a.length(), lb = b.length();
+        int width = lb + 2;
+        int size = (la + 2) * width;
+        if (mMatrix.length < size) {
+            mMatrix = new int[size];
+        }
+        int[] d = mMatrix;
+        int inf = la + lb;
+        // row and column 0 are sentinels, cell (i + 1, j + 1) is the distance of prefixes i and j
+        d[0] = inf;
+        for (int i = 0; i <= la; i++) {
+            d[(i + 1) * width] = inf;
+            d[(i + 1) * width + 1] = i;
+        }
+        for (int j = 0; j <= lb; j++) {
+            d[j + 1] = inf;
+            d[width + j + 1] = j;
+        }
+        mLastRows.clear();
+        for (int i = 1; i <= la; i++) {
+            char ca = a.charAt(i - 1);
+            int lastColumn = 0;
+            for (int j = 1; j <= lb; j++) {
+                char cb = b.charAt(j - 1);
+                Integer row = mLastRows.get(cb);
+                int i1 = row == null ? 0 : row;
+                int j1 = lastColumn;
+                int cost = 1;
+                if (ca == cb) {
+                    cost = 0;
+                    lastColumn = j;
+                }
+                int value = Math.min(Math.min(
+                        d[i * width + j] + cost,
+                        d[(i + 1) * width + j] + 1),
+                        d[i * width + j + 1] + 1);
+                value = Math.min(value, d[i1 * width + j1] + (i - i1 - 1) + 1 + (j - j1 - 1));
+                d[(i + 1) * width + j + 1] = value;
+            }
+            mLastRows.put(ca, i);
+        }
+        return d[(la + 1) * width + lb + 1];
+    }
+
+    /**
+     * Optimal string alignment distance: number of insertions, deletions, substitutions and
+     * transpositions of adjacent characters.
+     *
+     * @param a   first string
+     * @param b   second string
+     * @param max maximum distance of interest
+     * @return distance, or value greater than {@code max}, if the distance exceeds {@code max}
+     */
+    private int distance(String a, String b, int max) {
+        int la = a.length(), lb = b.length();
+        if (Math.abs(la - lb) > max) {
+            return max + 1;
+        }
+        if (mCurr.length <= lb) {
+            int size = lb + 1;
+            mPrevPrev = new int[size];
+            mPrev = new int[size];
+            mCurr = new int[size];
+        }
+        int[] prevPrev = mPrevPrev, prev = mPrev, curr = mCurr;
+        for (int j = 0; j <= lb; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= la; i++) {
+            curr[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= lb; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                curr[j] = value;
+                if (value < rowMin) {
+                    rowMin = value;
+                }
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[lb];
+    }
+
+    /**
+     * Node of the BK-tree. Children are stored in parallel arrays keyed by distance.
+     */
+    private static class Node {
+        final String word;
+        LookupKey key;
+        int count;
+        boolean removed;
+
+        int[] distances;
+        Node[] children;
+        int size;
+
+        Node(String word, LookupKey key) {
+            this.word = word;
+            this.key = key;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < size; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (children == null) {
+                distances = new int[2];
+                children = new Node[2];
+            } else if (size == children.length) {
+                distances = Arrays.copyOf(distances, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            distances[size] = distance;
+            children[size] = child;
+            size++;
+        }
+    }
+
+    /**
+     * Correction candidate.
+     */
+    public static class Suggestion {
+        static final Comparator<Suggestion> ORDER = new Comparator<Suggestion>() {
+            @Override
+            public int compare(Suggestion lhs, Suggestion rhs) {
+                if (lhs.distance != rhs.distance) {
+                    return lhs.distance < rhs.distance ? -1 : 1;
+                }
+                return lhs.count > rhs.count ? -1 : (lhs.count == rhs.count ? 0 : 1);
+            }
+        };
+
+        /**
+         * Key of the stored lookup
+         */
+        public final LookupKey key;
+        /**
+         * Edit distance to the misspelled word
+         */
+        public final int distance;
+        /**
+         * How many times the word was looked up
+         */
+        public final int count;
+
+        Suggestion(LookupKey key, int distance, int count) {
+            this.key = key;
+            this.distance = distance;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return key.text;
+        }
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.Attribute;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Translation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over stored translations. Maps every word of translations, synonyms,
+ * means and examples to the list of documents it occurs in, where a document is a single
+ * translation of a stored headword. Used to find source word by its translation.
+ * <p>
+ * Index is updated incrementally, replaced lookups are marked as removed and purged when
+ * they take up too much space. Methods are thread-safe.
+ */
+public class TranslationIndex {
+
+    /**
+     * Purge removed documents, when they exceed this fraction of all documents
+     */
+    private static final float PURGE_RATIO = 0.25f;
+
+    /**
+     * Token → sorted ids of documents containing it
+     */
+    private final TreeMap<String, Postings> mTokens = new TreeMap<>();
+    private final ArrayList<Doc> mDocs = new ArrayList<>();
+    /**
+     * Lookup key → ids of its documents, used for replacing lookups
+     */
+    private final HashMap<LookupKey, int[]> mKeyDocs = new HashMap<>();
+    private int mRemovedCount = 0;
+
+    /**
+     * Add lookup result to the index, replacing previous result with the same key.
+     *
+     * @param key         lookup key
+     * @param definitions result definitions
+     */
+    public synchronized void put(LookupKey key, List<Definition> definitions) {
+        remove(key);
+        Set<String> tokens = new HashSet<>();
+        int first = mDocs.size();
+        for (Definition definition : definitions) {
+            if (definition.tr == null || definition.text == null) {
+                continue;
+            }
+            for (Translation translation : definition.tr) {
+                if (translation.text == null) {
+                    continue;
+                }
+                tokens.clear();
+                tokenize(translation.text, tokens);
+                addAll(translation.syn, tokens);
+                addAll(translation.mean, tokens);
+                if (translation.ex != null) {
+                    for (Translation.Example example : translation.ex) {
+                        tokenize(example.text, tokens);
+                        addAll(example.tr, tokens);
+                    }
+                }
+                int id = mDocs.size();
+                mDocs.add(new Doc(key, definition.text, translation.text));
+                for (String token : tokens) {
+                    Postings postings = mTokens.get(token);
+                    if (postings == null) {
+                        postings = new Postings();
+                        mTokens.put(token, postings);
+                    }
+                    postings.add(id);
+                }
+            }
+        }
+        int count = mDocs.size() - first;
+        if (count > 0) {
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = first + i;
+            }
+            mKeyDocs.put(key, ids);
+        }
+    }
+
+    /**
+     * Remove lookup result from the index.
+     *
+     * @param key lookup key
+     */
+    public synchronized void remove(LookupKey key) {
+        int[] ids = mKeyDocs.remove(key);
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            mDocs.get(id).removed = true;
+        }
+        mRemovedCount += ids.length;
+        if (mRemovedCount > mDocs.size() * PURGE_RATIO) {
+            purge();
+        }
+    }
+
+    /**
+     * Search documents containing all words of the {@code query}. The last word is treated as
+     * a prefix, unless the query ends with a whitespace.
+     *
+     * @param query search query
+     * @param limit maximum number of hits
+     * @return list of hits, most recently added first
+     */
+    public synchronized List<Hit> search(String query, int limit) {
+        List<String> words = new ArrayList<>();
+        tokenize(query, words);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        boolean prefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+        BitSet result = null;
+        for (int i = 0, size = words.size(); i < size; i++) {
+            BitSet docs = new BitSet(mDocs.size());
+            String word = words.get(i);
+            if (prefix && i == size - 1) {
+                Map<String, Postings> range = mTokens.subMap(word, true, word + Character.MAX_VALUE, false);
+                for (Postings postings : range.values()) {
+                    postings.addTo(docs);
+                }
+            } else {
+                Postings postings = mTokens.get(word);
+                if (postings != null) {
+                    postings.addTo(docs);
+                }
+            }
+            if (result == null) {
+                result = docs;
+            } else {
+                result.and(docs);
+            }
+            if (result.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        int[] ids = new int[result.cardinality()];
+        for (int i = 0, id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+            ids[i++] = id;
+        }
+        List<Hit> hits = new ArrayList<>(Math.min(limit, ids.length));
+        for (int i = ids.length - 1; i >= 0 && hits.size() < limit; i--) {
+            Doc doc = mDocs.get(ids[i]);
+            if (!doc.removed) {
+                hits.add(new Hit(doc.key, doc.headword, doc.translation));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * @return number of indexed documents
+     */
+    public synchronized int size() {
+        return mDocs.size() - mRemovedCount;
+    }
+
+    /**
+     * Drop removed documents and reassign ids of the remaining ones.
+     */
+    private void purge() {
+        int[] remap = new int[mDocs.size()];
+        ArrayList<Doc> docs = new ArrayList<>(mDocs.size() - mRemovedCount);
+        for (int i = 0, size = mDocs.size(); i < size; i++) {
+            Doc doc = mDocs.get(i);
+            if (doc.removed) {
+                remap[i] = -1;
+            } else {
+                remap[i] = docs.size();
+                docs.add(doc);
+            }
+        }
+        Map.Entry<String, Postings> entry = mTokens.firstEntry();
+        while (entry != null) {
+            String token = entry.getKey();
+            if (entry.getValue().remap(remap)) {
+                mTokens.remove(token);
+            }
+            entry = mTokens.higherEntry(token);
+        }
+        for (Map.Entry<LookupKey, int[]> e : mKeyDocs.entrySet()) {
+            int[] ids = e.getValue();
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = remap[ids[i]];
+            }
+        }
+        mDocs.clear();
+        mDocs.addAll(docs);
+        mRemovedCount = 0;
+    }
+
+    private static void addAll(Attribute[] attributes, Set<String> out) {
+        if (attributes != null) {
+            for (Attribute attribute : attributes) {
+                tokenize(attribute.text, out);
+            }
+        }
+    }
+
+    /**
+     * Split text into lower case words.
+     *
+     * @param text text
+     * @param out  collection of words to add to
+     */
+    private static void tokenize(String text, Collection<String> out) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            boolean letter = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Indexed document: a single translation of the headword.
+     */
+    private static class Doc {
+        final LookupKey key;
+        final String headword;
+        final String translation;
+        boolean removed;
+
+        Doc(LookupKey key, String headword, String translation) {
+            this.key = key;
+            this.headword = headword;
+            this.translation = translation;
+        }
+    }
+
+    /**
+     * Growable sorted array of document ids.
+     */
+    private static class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void addTo(BitSet set) {
+            for (int i = 0; i < size; i++) {
+                set.set(ids[i]);
+            }
+        }
+
+        /**
+         * @return {@code true}, if postings became empty
+         */
+        boolean remap(int[] remap) {
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                int id = remap[ids[i]];
+                if (id >= 0) {
+                    ids[newSize++] = id;
+                }
+            }
+            size = newSize;
+            return size == 0;
+        }
+    }
+
+    /**
+     * Search hit.
+     */
+    public static class Hit {
+        /**
+         * Key of the stored lookup
+         */
+        public final LookupKey key;
+        /**
+         * Source word
+         */
+        public final String headword;
+        /**
+         * Translation of the {@link #headword}, which matched the query
+         */
+        public final String translation;
+
+        Hit(LookupKey key, String headword, String translation) {
+            this.key = key;
+            this.headword = headword;
+            this.translation = translation;
+        }
+
+        @Override
+        public String toString() {
+            return headword + " — " + translation;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares heap footprint of {@link Result} with the graph of {@link Definition}s it replaces.
+ */
+public class CompactResultTest {
+
+    @Test
+    public void smallerThanDefinitions() {
+        List<Definition> definitions = Responses.parse(20, 6);
+        Result result = new Result(new LookupKey("en-ru", "word", 0), definitions);
+        Footprint compact = Footprint.of(result);
+        Footprint tree = Footprint.of(definitions);
+        assertTrue("objects: " + compact.objects + " vs " + tree.objects,
+                compact.objects * 5 < tree.objects);
+        assertTrue("bytes: " + compact.bytes + " vs " + tree.bytes,
+                compact.bytes * 3 < tree.bytes);
+    }
+
+    @Test
+    public void fixedNumberOfObjects() {
+        Footprint small = Footprint.of(CompactResult.from(Responses.parse(2, 2)));
+        Footprint large = Footprint.of(CompactResult.from(Responses.parse(50, 10)));
+        // strings aside, objects do not depend on the number of translations
+        assertEquals(small.nonStringObjects(), large.nonStringObjects());
+        assertTrue(large.strings > small.strings);
+    }
+
+    @Test
+    public void stringsAreDeduplicated() {
+        List<Definition> definitions = Responses.parse(20, 6);
+        Footprint compact = Footprint.of(CompactResult.from(definitions));
+        Footprint tree = Footprint.of(definitions);
+        // synonyms, means and examples repeat across translations
+        assertTrue(compact.strings < tree.strings);
+    }
+
+}
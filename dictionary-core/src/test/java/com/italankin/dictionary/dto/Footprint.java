@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates retained heap size of an object graph, assuming 64-bit VM with compressed
+ * references: 12-byte object headers, 4-byte references, 8-byte alignment, UTF-16 strings.
+ * Own classes are walked by reflection, strings and collections are estimated by their size.
+ */
+final class Footprint {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    /**
+     * Estimated bytes
+     */
+    long bytes;
+    /**
+     * Number of objects, including strings and arrays
+     */
+    int objects;
+    /**
+     * Number of strings
+     */
+    int strings;
+
+    private final Set<Object> mVisited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    /**
+     * @param roots roots of the graph, objects reachable from several roots are counted once
+     * @return footprint of the graph
+     */
+    static Footprint of(Object... roots) {
+        Footprint footprint = new Footprint();
+        for (Object root : roots) {
+            footprint.visit(root);
+        }
+        return footprint;
+    }
+
+    private Footprint() {
+    }
+
+    /**
+     * @return number of objects other than strings
+     */
+    int nonStringObjects() {
+        return objects - strings;
+    }
+
+    private void visit(Object root) {
+        List<Object> queue = new ArrayList<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Object o = queue.remove(queue.size() - 1);
+            if (o == null || !mVisited.add(o)) {
+                continue;
+            }
+            objects++;
+            Class<?> type = o.getClass();
+            if (o instanceof String) {
+                strings++;
+                // String with its char array
+                bytes += align(HEADER + 2 * 4) + align(ARRAY_HEADER + 2 * ((String) o).length());
+            } else if (type.isArray()) {
+                Class<?> component = type.getComponentType();
+                int length = Array.getLength(o);
+                bytes += align(ARRAY_HEADER + (long) length * sizeOf(component));
+                if (!component.isPrimitive()) {
+                    for (int i = 0; i < length; i++) {
+                        queue.add(Array.get(o, i));
+                    }
+                }
+            } else if (o instanceof Collection) {
+                // ArrayList-like: object with a backing array
+                Collection<?> collection = (Collection<?>) o;
+                bytes += align(HEADER + 3 * 4) + align(ARRAY_HEADER + collection.size() * REFERENCE);
+                objects++;
+                queue.addAll(collection);
+            } else if (type.getName().startsWith("java.")) {
+                throw new IllegalArgumentException("Unsupported type: " + type);
+            } else {
+                long size = HEADER;
+                for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers())) {
+                            continue;
+                        }
+                        size += sizeOf(field.getType());
+                        if (!field.getType().isPrimitive()) {
+                            field.setAccessible(true);
+                            try {
+                                queue.add(field.get(o));
+                            } catch (IllegalAccessException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    }
+                }
+                bytes += align(size);
+            }
+        }
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+/**
+ * Synthetic lookup responses for tests. Every translation has grammatical attributes, two
+ * synonyms, a mean and an example. Synonyms and means repeat across translations, like in
+ * real responses.
+ */
+final class Responses {
+
+    static final String[] POS = {"noun", "verb", "adjective", "adverb"};
+    static final String[] GEN = {"m", "f", "n"};
+    static final String[] ASP = {"pf", "impf"};
+    static final String[] NUM = {"sg", "pl"};
+
+    private Responses() {
+        // no instances
+    }
+
+    /**
+     * @param definitions  number of definitions
+     * @param translations number of translations in every definition
+     * @return JSON of the response
+     */
+    static String json(int definitions, int translations) {
+        JsonArray def = new JsonArray();
+        for (int d = 0; d < definitions; d++) {
+            String pos = POS[d % POS.length];
+            JsonArray tr = new JsonArray();
+            for (int t = 0; t < translations; t++) {
+                JsonObject translation = attribute("translation" + d + "_" + t, pos);
+                translation.addProperty("gen", GEN[t % GEN.length]);
+                translation.addProperty("asp", ASP[t % ASP.length]);
+                translation.addProperty("num", NUM[t % NUM.length]);
+                JsonObject synonym = attribute("synonym" + t, pos);
+                synonym.addProperty("gen", GEN[(t + 1) % GEN.length]);
+                translation.add("syn", array(synonym, attribute("synonym" + (t + 1), pos)));
+                translation.add("mean", array(attribute("meaning" + t % 3, null)));
+                JsonObject example = attribute("example" + d, null);
+                example.add("tr", array(attribute("example translation" + d, null)));
+                translation.add("ex", array(example));
+                tr.add(translation);
+            }
+            JsonObject definition = attribute("word" + d, pos);
+            definition.addProperty("ts", "w");
+            definition.add("tr", tr);
+            def.add(definition);
+        }
+        JsonObject result = new JsonObject();
+        result.add("head", new JsonObject());
+        result.add("def", def);
+        return result.toString();
+    }
+
+    /**
+     * @return parsed definitions of {@link #json(int, int)}
+     */
+    static List<Definition> parse(int definitions, int translations) {
+        return new Gson().fromJson(json(definitions, translations), DicResult.class).def;
+    }
+
+    private static JsonObject attribute(String text, String pos) {
+        JsonObject attribute = new JsonObject();
+        attribute.addProperty("text", text);
+        if (pos != null) {
+            attribute.addProperty("pos", pos);
+        }
+        return attribute;
+    }
+
+    private static JsonArray array(JsonObject... elements) {
+        JsonArray array = new JsonArray();
+        for (JsonObject element : elements) {
+            array.add(element);
+        }
+        return array;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.dto;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VocabularyTest {
+
+    private static final int DEFINITIONS = 200;
+    private static final int TRANSLATIONS = 8;
+
+    private static List<Attribute> attributes;
+
+    @BeforeClass
+    public static void parse() {
+        List<Definition> definitions = Responses.parse(DEFINITIONS, TRANSLATIONS);
+        assertEquals(DEFINITIONS, definitions.size());
+        attributes = new ArrayList<>();
+        for (Definition definition : definitions) {
+            collect(definition, attributes);
+        }
+    }
+
+    @Test
+    public void valuesAreShared() {
+        Map<String, String> first = new HashMap<>();
+        int values = 0;
+        for (Attribute attribute : attributes) {
+            for (String value : values(attribute)) {
+                String canonical = first.get(value);
+                if (canonical == null) {
+                    first.put(value, value);
+                } else {
+                    assertSame(value, canonical);
+                }
+                values++;
+            }
+        }
+        assertTrue(values > DEFINITIONS * TRANSLATIONS * 3);
+    }
+
+    @Test
+    public void valuesAreCanonical() {
+        for (Attribute attribute : attributes) {
+            for (String value : values(attribute)) {
+                assertSame(Vocabulary.intern(new String(value)), value);
+            }
+        }
+    }
+
+    @Test
+    public void footprint() {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+        Set<String> texts = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+        int values = 0;
+        for (Attribute attribute : attributes) {
+            for (String value : values(attribute)) {
+                instances.add(value);
+                values++;
+            }
+            texts.add(attribute.text);
+        }
+        // one instance per distinct value, however many nodes use it
+        assertEquals(Responses.POS.length + Responses.GEN.length + Responses.ASP.length +
+                Responses.NUM.length, instances.size());
+        assertTrue(instances.size() * 100 < values);
+        // texts are not interned
+        assertEquals(attributes.size(), texts.size());
+    }
+
+    @Test
+    public void commonValuesAreUnique() {
+        Set<String> unique = new HashSet<>();
+        for (String value : Vocabulary.COMMON) {
+            assertTrue("duplicate: " + value, unique.add(value));
+        }
+    }
+
+    @Test
+    public void unknownValues() {
+        String value = Vocabulary.intern(new String("unknown part of speech"));
+        assertSame(value, Vocabulary.intern(new String("unknown part of speech")));
+        assertNull(Vocabulary.intern(null));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Helpers
+    ///////////////////////////////////////////////////////////////////////////
+
+    private static void collect(Attribute attribute, List<Attribute> out) {
+        out.add(attribute);
+        if (attribute instanceof Definition) {
+            collect(((Definition) attribute).tr, out);
+        } else if (attribute instanceof Translation) {
+            Translation translation = (Translation) attribute;
+            collect(translation.syn, out);
+            collect(translation.mean, out);
+            collect(translation.ex, out);
+        } else if (attribute instanceof Translation.Example) {
+            collect(((Translation.Example) attribute).tr, out);
+        }
+    }
+
+    private static void collect(Attribute[] attributes, List<Attribute> out) {
+        if (attributes != null) {
+            for (Attribute attribute : attributes) {
+                collect(attribute, out);
+            }
+        }
+    }
+
+    private static List<String> values(Attribute attribute) {
+        List<String> values = new ArrayList<>(4);
+        for (String value : new String[]{attribute.pos, attribute.num, attribute.gen, attribute.asp}) {
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.LookupKey;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpellingCorrectorTest {
+
+    private static final String LANG = "en-ru";
+
+    /**
+     * Alignment distance does not satisfy the triangle inequality: "ca" → "ac" → "abc" takes
+     * two edits, while "ca" → "abc" takes three
+     */
+    @Test
+    public void transpositionAndInsertion() {
+        SpellingCorrector corrector = new SpellingCorrector();
+        add(corrector, "ca", "ac", "abcde", "acb", "bac");
+        assertEquals(words(corrector, "ac"), bruteForce(words("ca", "ac", "abcde", "acb", "bac"), "ac"));
+        assertEquals(words(corrector, "abc"), bruteForce(words("ca", "ac", "abcde", "acb", "bac"), "abc"));
+    }
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // small alphabet, so words are close to each other
+            Set<String> words = new LinkedHashSet<>();
+            while (words.size() < 300) {
+                words.add(randomWord(random, "abcd", 1 + random.nextInt(7)));
+            }
+            List<String> shuffled = new ArrayList<>(words);
+            Collections.shuffle(shuffled, random);
+            SpellingCorrector corrector = new SpellingCorrector();
+            for (String word : shuffled) {
+                corrector.add(new LookupKey(LANG, word, 0));
+            }
+            for (int i = 0; i < 50; i++) {
+                String query = randomWord(random, "abcd", 1 + random.nextInt(7));
+                assertEquals("query: " + query, bruteForce(shuffled, query), words(corrector, query));
+            }
+        }
+    }
+
+    @Test
+    public void removedWordsAreNotSuggested() {
+        SpellingCorrector corrector = new SpellingCorrector();
+        add(corrector, "house", "mouse", "horse");
+        corrector.remove(new LookupKey(LANG, "mouse", 0));
+        assertEquals(words(words("horse", "house")), words(corrector, "hause"));
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Helpers
+    ///////////////////////////////////////////////////////////////////////////
+
+    private static void add(SpellingCorrector corrector, String... words) {
+        for (String word : words) {
+            corrector.add(new LookupKey(LANG, word, 0));
+        }
+    }
+
+    private static Set<String> words(SpellingCorrector corrector, String query) {
+        Set<String> result = new TreeSet<>();
+        for (SpellingCorrector.Suggestion suggestion : corrector.suggest(LANG, query, Integer.MAX_VALUE)) {
+            result.add(suggestion.key.text);
+        }
+        return result;
+    }
+
+    private static List<String> words(String... words) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, words);
+        return list;
+    }
+
+    private static Set<String> words(List<String> words) {
+        return new TreeSet<>(words);
+    }
+
+    /**
+     * Same rules as {@link SpellingCorrector#suggest(String, String, int)}, checking every word.
+     */
+    private static Set<String> bruteForce(List<String> words, String query) {
+        int max = query.length() <= 4 ? 1 : 2;
+        Set<String> result = new TreeSet<>();
+        for (String word : words) {
+            int d = alignmentDistance(query, word);
+            if (d > 0 && d <= max) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    private static int alignmentDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomWord(Random random, String alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.utils;
+
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Translation;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks search latency of the index filled with tens of thousands of synthetic lookups.
+ */
+public class TranslationIndexTest {
+
+    private static final String LANG = "en-ru";
+
+    /**
+     * Number of indexed lookups
+     */
+    private static final int LOOKUPS = 30000;
+    private static final int TRANSLATIONS = 3;
+    /**
+     * Number of distinct words in translations
+     */
+    private static final int WORDS = 5000;
+    private static final int QUERIES = 500;
+    private static final int LIMIT = 20;
+    /**
+     * Budget of a single search at the 95th percentile, in milliseconds
+     */
+    private static final long SEARCH_BUDGET = 10;
+
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "ne", "ru", "sa", "to", "vi", "ze", "po", "da", "gu", "he", "ri", "bo"
+    };
+
+    private static String[] words;
+    private static TranslationIndex index;
+
+    @BeforeClass
+    public static void fill() {
+        Random random = new Random(42);
+        words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int s = 0, count = 2 + random.nextInt(3); s < count; s++) {
+                sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = sb.toString();
+        }
+        index = new TranslationIndex();
+        for (int i = 0; i < LOOKUPS; i++) {
+            LookupKey key = new LookupKey(LANG, "headword" + i, 0);
+            index.put(key, Collections.singletonList(definition(random, key.text)));
+        }
+    }
+
+    @Test
+    public void size() {
+        assertEquals(LOOKUPS * TRANSLATIONS, index.size());
+    }
+
+    @Test
+    public void searchLatency() {
+        Random random = new Random(7);
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(query(random));
+        }
+        // warm up
+        for (String query : queries) {
+            index.search(query, LIMIT);
+        }
+        long[] times = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            List<TranslationIndex.Hit> hits = index.search(queries.get(i), LIMIT);
+            times[i] = System.nanoTime() - start;
+            assertTrue(hits.size() <= LIMIT);
+        }
+        Arrays.sort(times);
+        long median = TimeUnit.NANOSECONDS.toMicros(times[QUERIES / 2]);
+        long p95 = TimeUnit.NANOSECONDS.toMicros(times[QUERIES * 95 / 100]);
+        long max = TimeUnit.NANOSECONDS.toMicros(times[QUERIES - 1]);
+        System.out.println("TranslationIndex.search over " + index.size() + " documents: median "
+                + median + "us, p95 " + p95 + "us, max " + max + "us");
+        assertTrue("p95: " + p95 + "us", p95 < TimeUnit.MILLISECONDS.toMicros(SEARCH_BUDGET));
+    }
+
+    @Test
+    public void searchByPrefix() {
+        // "un" is not a syllable, so generated words never start with it
+        assertTrue(index.search("uniq", LIMIT).isEmpty());
+        LookupKey key = new LookupKey(LANG, "headword", 0);
+        Definition definition = definition(new Random(1), key.text);
+        definition.tr[1].text = "unique translation";
+        TranslationIndex small = new TranslationIndex();
+        small.put(key, Collections.singletonList(definition));
+        List<TranslationIndex.Hit> hits = small.search("uniq", LIMIT);
+        assertEquals(1, hits.size());
+        assertEquals("unique translation", hits.get(0).translation);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Helpers
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return one or two words, the last one is often a prefix, like queries typed by user
+     */
+    private static String query(Random random) {
+        String word = word(random);
+        switch (random.nextInt(4)) {
+            case 0:
+                return word + " ";
+            case 1:
+                return word.substring(0, 2);
+            case 2:
+                return word.substring(0, 3 + random.nextInt(word.length() - 3));
+            default:
+                String next = word(random);
+                return word + " " + next.substring(0, 3);
+        }
+    }
+
+    private static Definition definition(Random random, String headword) {
+        Definition definition = new Definition();
+        definition.text = headword;
+        definition.pos = "noun";
+        definition.tr = new Translation[TRANSLATIONS];
+        for (int t = 0; t < TRANSLATIONS; t++) {
+            Translation translation = new Translation();
+            translation.text = word(random) + " " + word(random);
+            translation.syn = new Translation.Synonym[]{synonym(word(random)), synonym(word(random))};
+            Translation.Mean mean = new Translation.Mean();
+            mean.text = word(random);
+            translation.mean = new Translation.Mean[]{mean};
+            Translation.Example example = new Translation.Example();
+            example.text = word(random) + " " + word(random) + " " + word(random);
+            Translation exampleTranslation = new Translation();
+            exampleTranslation.text = word(random) + " " + word(random);
+            example.tr = new Translation[]{exampleTranslation};
+            translation.ex = new Translation.Example[]{example};
+            definition.tr[t] = translation;
+        }
+        return definition;
+    }
+
+    private static Translation.Synonym synonym(String text) {
+        Translation.Synonym synonym = new Translation.Synonym();
+        synonym.text = text;
+        return synonym;
+    }
+
+    /**
+     * @return word, frequent words are picked more often
+     */
+    private static String word(Random random) {
+        double r = random.nextDouble();
+        return words[(int) (r * r * WORDS)];
+    }
+
+}
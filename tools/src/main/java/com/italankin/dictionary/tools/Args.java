@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal parser of "--name value" command line arguments.
+ */
+class Args {
+
+    private final Map<String, String> mValues = new HashMap<>();
+
+    Args(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (!name.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + name);
+            }
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                mValues.put(name, args[++i]);
+            } else {
+                mValues.put(name, "");
+            }
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        String value = mValues.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    String require(String name) {
+        String value = mValues.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing required argument: " + name);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.italankin.dictionary.utils.PayloadCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compares size and throughput of stored payloads: plain JSON, deflate and deflate with the
+ * preset dictionary of {@link PayloadCodec}. Every payload is encoded and decoded separately,
+ * like the app stores them. Sizes are reported relative to plain JSON and to deflate without
+ * dictionary on the same corpus.
+ * <pre>
+ * Usage: CompressionBenchmark --dir path/to/lookups [--rounds 20]
+ *        CompressionBenchmark --words words.txt [--lang en-ru] [--rounds 20]
+ * </pre>
+ * See {@link Payloads} for the corpus options.
+ */
+public class CompressionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        int rounds = Integer.parseInt(a.get("--rounds", "20"));
+        List<byte[]> payloads = Payloads.load(a);
+        long total = 0;
+        for (byte[] payload : payloads) {
+            total += payload.length;
+        }
+        System.out.printf(Locale.US, "%d payloads, %d bytes, %d bytes on average%n%n",
+                payloads.size(), total, total / payloads.size());
+        System.out.printf(Locale.US, "%-12s %10s %7s %10s %12s %12s %12s%n",
+                "codec", "bytes", "ratio", "vs deflate", "write MB/s", "read MB/s", "random us");
+        Codec baseline = new Deflate();
+        long baselineSize = encodedSize(baseline, payloads);
+        Codec[] codecs = {new Plain(), baseline, new Dictionary()};
+        for (Codec codec : codecs) {
+            run(codec, payloads, total, baselineSize, rounds);
+        }
+    }
+
+    /**
+     * @param baselineSize size of the payloads encoded with deflate without dictionary
+     */
+    private static void run(Codec codec, List<byte[]> payloads, long total, long baselineSize,
+            int rounds) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(payloads.size());
+        long size = 0;
+        for (byte[] payload : payloads) {
+            byte[] e = codec.encode(payload);
+            encoded.add(e);
+            size += e.length;
+            if (!Arrays.equals(payload, codec.decode(e))) {
+                throw new IllegalStateException(codec.name() + ": round trip failed");
+            }
+        }
+        // warm up
+        for (int i = 0; i < 3; i++) {
+            encodeAll(codec, payloads);
+            decodeAll(codec, encoded);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            encodeAll(codec, payloads);
+        }
+        long writeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            decodeAll(codec, encoded);
+        }
+        long readNanos = System.nanoTime() - start;
+        // single entries in random order, as lookups read them
+        Random random = new Random(0);
+        int samples = rounds * payloads.size();
+        start = System.nanoTime();
+        for (int i = 0; i < samples; i++) {
+            codec.decode(encoded.get(random.nextInt(encoded.size())));
+        }
+        long randomNanos = System.nanoTime() - start;
+        System.out.printf(Locale.US, "%-12s %10d %7.3f %10.3f %12.1f %12.1f %12.2f%n",
+                codec.name(), size, (double) size / total, (double) size / baselineSize,
+                throughput(total * rounds, writeNanos), throughput(total * rounds, readNanos),
+                randomNanos / 1000.0 / samples);
+    }
+
+    private static long encodedSize(Codec codec, List<byte[]> payloads) {
+        long size = 0;
+        for (byte[] payload : payloads) {
+            size += codec.encode(payload).length;
+        }
+        return size;
+    }
+
+    private static void encodeAll(Codec codec, List<byte[]> payloads) {
+        for (byte[] payload : payloads) {
+            codec.encode(payload);
+        }
+    }
+
+    private static void decodeAll(Codec codec, List<byte[]> encoded) throws IOException {
+        for (byte[] e : encoded) {
+            codec.decode(e);
+        }
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return bytes / (nanos / 1e9) / (1024 * 1024);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Codecs
+    ///////////////////////////////////////////////////////////////////////////
+
+    private interface Codec {
+        String name();
+
+        byte[] encode(byte[] data);
+
+        byte[] decode(byte[] data) throws IOException;
+    }
+
+    private static class Plain implements Codec {
+        @Override
+        public String name() {
+            return "plain";
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            return data.clone();
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            return data.clone();
+        }
+    }
+
+    /**
+     * Deflate without preset dictionary.
+     */
+    private static class Deflate implements Codec {
+        @Override
+        public String name() {
+            return "deflate";
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+                byte[] buffer = new byte[1024];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+                byte[] buffer = new byte[1024];
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && inflater.needsInput()) {
+                        throw new IOException("Unexpected end of payload");
+                    }
+                    out.write(buffer, 0, n);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static class Dictionary implements Codec {
+        @Override
+        public String name() {
+            return "dictionary";
+        }
+
+        @Override
+        public byte[] encode(byte[] data) {
+            return PayloadCodec.encode(data);
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            return PayloadCodec.decode(data);
+        }
+    }
+
+}
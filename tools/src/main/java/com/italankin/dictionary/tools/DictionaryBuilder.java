@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Builds preset dictionary of {@code PayloadCodec} from a corpus of payloads and writes it as
+ * a Java class {@code PayloadDictionary<id>} into the output directory.
+ * <pre>
+ * Usage: DictionaryBuilder --id 2 --dir path/to/lookups [--size 1024] [--min-share 0.05] [--out dir]
+ *        DictionaryBuilder --id 2 --words words.txt [--lang en-ru] [--size 1024] [--out dir]
+ * </pre>
+ * Substrings starting at JSON delimiters and spaces are counted once per payload. Substrings found in at
+ * least {@code --min-share} of payloads are picked by the number of bytes they save, not
+ * counting characters already covered by picked substrings, until the dictionary reaches
+ * {@code --size} bytes. Picked substrings are ordered from the least to the most valuable, because strings
+ * closer to the end are encoded with shorter distances.
+ * <p>
+ * Payloads encoded with a dictionary can only be decoded with exactly the same bytes, so an
+ * existing dictionary is never overwritten, new dictionaries get new ids.
+ */
+public class DictionaryBuilder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Shortest match of deflate
+     */
+    private static final int MIN_LENGTH = 3;
+    private static final int MAX_LENGTH = 48;
+    /**
+     * Characters, substrings may start with: JSON delimiters and spaces
+     */
+    private static final String DELIMITERS = "{}[],:\" ";
+    /**
+     * Number of characters of the dictionary in one line of the generated source
+     */
+    private static final int LINE_LENGTH = 48;
+
+    private static final String PACKAGE = "com.italankin.dictionary.utils";
+    private static final String CLASS_PREFIX = "PayloadDictionary";
+    private static final String DEFAULT_OUT = "dictionary-core/src/main/java/com/italankin/dictionary/utils";
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        int id = Integer.parseInt(a.require("--id"));
+        int size = Integer.parseInt(a.get("--size", "1024"));
+        float minShare = Float.parseFloat(a.get("--min-share", "0.05"));
+        File out = new File(a.get("--out", DEFAULT_OUT), CLASS_PREFIX + id + ".java");
+        if (out.exists()) {
+            throw new IllegalStateException(out + " already exists, use a new id");
+        }
+        List<byte[]> payloads = Payloads.load(a);
+        int minCount = Math.max(2, (int) Math.ceil(payloads.size() * minShare));
+        List<Candidate> candidates = count(payloads, minCount);
+        List<Candidate> picked = pick(candidates, size);
+        StringBuilder dictionary = new StringBuilder();
+        int bytes = 0;
+        for (Candidate candidate : picked) {
+            dictionary.append(candidate.text);
+            bytes += candidate.bytes;
+        }
+        write(out, id, payloads.size(), dictionary.toString());
+        System.out.printf(Locale.US, "%d payloads, %d candidates, %d strings, %d bytes%n",
+                payloads.size(), candidates.size(), picked.size(), bytes);
+        System.out.println("Written " + out);
+    }
+
+    /**
+     * @return substrings found in at least {@code minCount} payloads
+     */
+    private static List<Candidate> count(List<byte[]> payloads, int minCount) {
+        Map<String, int[]> counts = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (byte[] payload : payloads) {
+            String s = new String(payload, UTF_8);
+            seen.clear();
+            for (int i = 0, length = s.length(); i < length; i++) {
+                if (DELIMITERS.indexOf(s.charAt(i)) < 0) {
+                    continue;
+                }
+                for (int end = i + MIN_LENGTH, max = Math.min(length, i + MAX_LENGTH); end <= max; end++) {
+                    seen.add(s.substring(i, end));
+                }
+            }
+            for (String substring : seen) {
+                int[] count = counts.get(substring);
+                if (count == null) {
+                    counts.put(substring, new int[]{1});
+                } else {
+                    count[0]++;
+                }
+            }
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            int count = entry.getValue()[0];
+            if (count >= minCount) {
+                candidates.add(new Candidate(entry.getKey(), count));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Pick candidates greedily. Value of a candidate is the number of its characters not
+     * covered by already picked strings, so shifted copies of picked strings are skipped.
+     *
+     * @return picked candidates, least valuable first
+     */
+    private static List<Candidate> pick(List<Candidate> candidates, int size) {
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Math.max(1, candidates.size()),
+                new Comparator<Candidate>() {
+                    @Override
+                    public int compare(Candidate lhs, Candidate rhs) {
+                        if (lhs.score != rhs.score) {
+                            return lhs.score > rhs.score ? -1 : 1;
+                        }
+                        // longer string covers more of the others
+                        if (lhs.bytes != rhs.bytes) {
+                            return lhs.bytes > rhs.bytes ? -1 : 1;
+                        }
+                        return lhs.text.compareTo(rhs.text);
+                    }
+                });
+        queue.addAll(candidates);
+        List<Candidate> picked = new ArrayList<>();
+        int total = 0;
+        Candidate candidate;
+        while ((candidate = queue.poll()) != null) {
+            if (total + candidate.bytes > size) {
+                continue;
+            }
+            // scores only decrease, so candidate is picked if it is still the best one
+            long score = candidate.score(picked);
+            if (score <= 0) {
+                continue;
+            }
+            if (score < candidate.score) {
+                candidate.score = score;
+                queue.add(candidate);
+                continue;
+            }
+            picked.add(candidate);
+            total += candidate.bytes;
+        }
+        Collections.reverse(picked);
+        return picked;
+    }
+
+    /**
+     * @return length of the longest common substring
+     */
+    private static int commonLength(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        int max = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                curr[j] = a.charAt(i - 1) == b.charAt(j - 1) ? prev[j - 1] + 1 : 0;
+                max = Math.max(max, curr[j]);
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return max;
+    }
+
+    private static void write(File file, int id, int payloads, String dictionary) throws IOException {
+        String name = CLASS_PREFIX + id;
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            writer.write("package " + PACKAGE + ";\n\n");
+            writer.write("/**\n");
+            writer.write(" * Preset dictionary " + id + " of {@link PayloadCodec}, generated by DictionaryBuilder from\n");
+            writer.write(" * " + payloads + " payloads. Do not edit: payloads encoded with this dictionary can only be\n");
+            writer.write(" * decoded with exactly the same bytes.\n");
+            writer.write(" */\n");
+            writer.write("final class " + name + " {\n\n");
+            writer.write("    static final String VALUE = ");
+            for (int i = 0, length = dictionary.length(); i < length; i += LINE_LENGTH) {
+                if (i > 0) {
+                    writer.write(" +\n            ");
+                }
+                writer.write('"');
+                writer.write(escape(dictionary.substring(i, Math.min(length, i + LINE_LENGTH))));
+                writer.write('"');
+            }
+            if (dictionary.isEmpty()) {
+                writer.write("\"\"");
+            }
+            writer.write(";\n\n");
+            writer.write("    private " + name + "() {\n");
+            writer.write("        // no instances\n");
+            writer.write("    }\n\n");
+            writer.write("}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return Java string literal contents, non-ASCII characters are escaped
+     */
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        for (int i = 0, length = s.length(); i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class Candidate {
+        final String text;
+        final int bytes;
+        final int count;
+        /**
+         * Estimate of bytes saved in the corpus
+         */
+        long score;
+
+        Candidate(String text, int count) {
+            this.text = text;
+            this.bytes = text.getBytes(UTF_8).length;
+            this.count = count;
+            this.score = score(text.length());
+        }
+
+        /**
+         * @return score of the characters not covered by any of {@code picked} strings
+         */
+        long score(List<Candidate> picked) {
+            int covered = 0;
+            for (Candidate p : picked) {
+                covered = Math.max(covered, commonLength(text, p.text));
+            }
+            return score(text.length() - covered);
+        }
+
+        private long score(int length) {
+            return (long) count * (length - MIN_LENGTH + 1);
+        }
+    }
+
+}
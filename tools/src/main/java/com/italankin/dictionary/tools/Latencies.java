@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Thread safe recorder of latency samples.
+ */
+final class Latencies {
+
+    private long[] mSamples = new long[256];
+    private int mSize = 0;
+
+    /**
+     * @param nanos sample in nanoseconds
+     */
+    synchronized void add(long nanos) {
+        if (mSize == mSamples.length) {
+            mSamples = Arrays.copyOf(mSamples, mSize * 2);
+        }
+        mSamples[mSize++] = nanos;
+    }
+
+    synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * @return percentiles summary in milliseconds
+     */
+    String summary() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(mSamples, mSize);
+        }
+        if (sorted.length == 0) {
+            return "no samples";
+        }
+        Arrays.sort(sorted);
+        return String.format(Locale.US, "p50 %.1f  p90 %.1f  p99 %.1f  max %.1f ms (%d samples)",
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / 1e6, sorted.length);
+    }
+
+    /**
+     * Nearest rank percentile.
+     */
+    private static double percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1e6;
+    }
+
+}
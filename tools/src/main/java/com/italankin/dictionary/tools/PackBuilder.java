@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Builds word pack from the list of words by fetching them from the dictionary API (or its local
+ * stand-in, see {@link StubApiServer}).
+ * <pre>
+ * Usage: PackBuilder --lang en-ru --words words.txt --out en-ru.dpak
+ *                    [--base-url http://localhost:8080/] [--key KEY] [--ui en] [--flags 0]
+ *                    [--delay 100]
+ * </pre>
+ * Words file contains a word per line, empty lines and lines starting with '#' are skipped.
+ */
+public class PackBuilder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        String lang = a.require("--lang");
+        File words = new File(a.require("--words"));
+        File out = new File(a.require("--out"));
+        HttpUrl baseUrl = HttpUrl.parse(a.get("--base-url", "http://localhost:8080/"));
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("Invalid --base-url");
+        }
+        String key = a.get("--key", "stub");
+        String ui = a.get("--ui", "en");
+        int flags = Integer.parseInt(a.get("--flags", "0"));
+        long delay = Long.parseLong(a.get("--delay", "100"));
+
+        Set<String> list = readWords(words);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(10, TimeUnit.SECONDS)
+                .build();
+        long start = System.currentTimeMillis();
+        int empty = 0, failed = 0, done = 0;
+        PackWriter writer = new PackWriter(out, lang, flags);
+        try {
+            for (String word : list) {
+                HttpUrl url = baseUrl.newBuilder()
+                        .addPathSegment("lookup")
+                        .addQueryParameter("key", key)
+                        .addQueryParameter("lang", lang)
+                        .addQueryParameter("text", word)
+                        .addQueryParameter("ui", ui)
+                        .addQueryParameter("flags", String.valueOf(flags))
+                        .build();
+                try {
+                    JsonArray definitions = fetch(client, url);
+                    if (definitions == null || definitions.size() == 0) {
+                        empty++;
+                    } else {
+                        writer.add(word, definitions.toString().getBytes(UTF_8));
+                    }
+                } catch (IOException | JsonParseException e) {
+                    failed++;
+                    System.err.println(word + ": " + e.getMessage());
+                }
+                if (++done % 100 == 0) {
+                    System.out.println(done + "/" + list.size());
+                }
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        System.out.println(String.format(Locale.US,
+                "%d words: %d packed, %d empty, %d failed; %d KB -> %d KB in %d s",
+                list.size(), writer.getCount(), empty, failed, writer.getDataSize() / 1024,
+                out.length() / 1024, (System.currentTimeMillis() - start) / 1000));
+    }
+
+    /**
+     * Read words, normalized the same way the app normalizes lookup keys.
+     */
+    static Set<String> readWords(File file) throws IOException {
+        Set<String> words = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().toLowerCase(Locale.ROOT);
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    words.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return words;
+    }
+
+    /**
+     * @return "def" array of the lookup response
+     */
+    private static JsonArray fetch(OkHttpClient client, HttpUrl url) throws IOException {
+        Request request = new Request.Builder().url(url).build();
+        Response response = client.newCall(request).execute();
+        try {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code());
+            }
+            JsonElement json = new JsonParser().parse(response.body().charStream());
+            if (!json.isJsonObject()) {
+                throw new JsonParseException("Unexpected response");
+            }
+            JsonObject object = json.getAsJsonObject();
+            return object.has("def") ? object.getAsJsonArray("def") : null;
+        } finally {
+            response.body().close();
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writer of word packs. See {@code com.italankin.dictionary.utils.PackReader} in the app for
+ * the format description, both classes must be changed together.
+ */
+public class PackWriter implements Closeable {
+
+    public static final int MAGIC = 0x4450414b; // "DPAK"
+    public static final int VERSION = 1;
+
+    private final File mFile;
+    private final DataOutputStream mOut;
+    private final Deflater mDeflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final int mCountOffset;
+
+    private final List<String> mTexts = new ArrayList<>();
+    private final List<Long> mOffsets = new ArrayList<>();
+    private byte[] mBuffer = new byte[16384];
+    private long mDataSize = 0;
+
+    /**
+     * Create pack and write its header.
+     *
+     * @param file  output file
+     * @param lang  translation direction
+     * @param flags search flags, which results were fetched with
+     */
+    public PackWriter(File file, String lang, int flags) throws IOException {
+        mFile = file;
+        mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        mOut.writeInt(MAGIC);
+        mOut.writeInt(VERSION);
+        mOut.writeUTF(lang);
+        mOut.writeInt(flags);
+        mCountOffset = mOut.size();
+        // entry count is not known yet, it's written on close
+        mOut.writeInt(0);
+    }
+
+    /**
+     * Add entry.
+     *
+     * @param text lookup text
+     * @param json UTF-8 JSON array of definitions
+     */
+    public void add(String text, byte[] json) throws IOException {
+        mDeflater.reset();
+        mDeflater.setInput(json);
+        mDeflater.finish();
+        int length = 0;
+        while (!mDeflater.finished()) {
+            if (length == mBuffer.length) {
+                byte[] buffer = new byte[mBuffer.length * 2];
+                System.arraycopy(mBuffer, 0, buffer, 0, length);
+                mBuffer = buffer;
+            }
+            length += mDeflater.deflate(mBuffer, length, mBuffer.length - length);
+        }
+        mTexts.add(text);
+        mOffsets.add((long) mOut.size());
+        mOut.writeUTF(text);
+        mOut.writeInt(json.length);
+        mOut.writeInt(length);
+        mOut.write(mBuffer, 0, length);
+        mDataSize += json.length;
+    }
+
+    /**
+     * @return number of entries added
+     */
+    public int getCount() {
+        return mTexts.size();
+    }
+
+    /**
+     * @return total size of uncompressed entries
+     */
+    public long getDataSize() {
+        return mDataSize;
+    }
+
+    /**
+     * Write index and finish the pack.
+     */
+    @Override
+    public void close() throws IOException {
+        long indexOffset = mOut.size();
+        for (int i = 0, size = mTexts.size(); i < size; i++) {
+            mOut.writeUTF(mTexts.get(i));
+            mOut.writeLong(mOffsets.get(i));
+        }
+        mOut.writeLong(indexOffset);
+        mOut.close();
+        mDeflater.end();
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(mCountOffset);
+            file.writeInt(mTexts.size());
+        } finally {
+            file.close();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.italankin.dictionary.utils.PayloadCodec;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Corpus of payloads for compression tools, read from the command line arguments:
+ * <pre>
+ * --dir path/to/lookups             stored lookups or responses, scanned recursively,
+ *                                   files may be either plain or encoded
+ * --words words.txt [--lang en-ru]  synthetic responses of {@link StubApiServer}
+ * </pre>
+ */
+final class Payloads {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Payloads() {
+        // no instances
+    }
+
+    /**
+     * @param a command line arguments
+     * @return decoded payloads
+     * @throws IllegalArgumentException if no payloads were found
+     */
+    static List<byte[]> load(Args a) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        String dir = a.get("--dir", null);
+        if (dir != null) {
+            collect(new File(dir), payloads);
+        } else {
+            String lang = a.get("--lang", "en-ru");
+            Set<String> words = PackBuilder.readWords(new File(a.require("--words")));
+            for (String word : words) {
+                payloads.add(StubApiServer.synthetic(lang, word).getBytes(UTF_8));
+            }
+        }
+        if (payloads.isEmpty()) {
+            throw new IllegalArgumentException("No payloads found");
+        }
+        return payloads;
+    }
+
+    private static void collect(File file, List<byte[]> out) throws IOException {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    collect(f, out);
+                }
+            }
+        } else if (file.isFile() && !file.getName().endsWith(".tmp")) {
+            InputStream in = new FileInputStream(file);
+            try {
+                out.add(PayloadCodec.decode(in));
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Recorded query log. Every line is a tab separated entry:
+ * <pre>
+ * time  lang  text  flags  [session]
+ * </pre>
+ * Time is in milliseconds, only differences between entries matter. Lookups of the same session
+ * supersede each other like consecutive lookups in the app, entries without session are
+ * independent. Empty lines and lines starting with '#' are skipped.
+ */
+final class QueryLog {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private QueryLog() {
+    }
+
+    /**
+     * Read log entries.
+     *
+     * @param file log file
+     * @return entries ordered by time
+     * @throws IOException if file cannot be read or has invalid format
+     */
+    static List<Entry> read(File file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length < 4) {
+                    throw new IOException(file + ":" + number + ": expected at least 4 fields");
+                }
+                try {
+                    entries.add(new Entry(Long.parseLong(fields[0].trim()), fields[1], fields[2],
+                            Integer.parseInt(fields[3].trim()), fields.length > 4 ? fields[4] : null));
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + number + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        // stable, so entries with equal time keep their order
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry lhs, Entry rhs) {
+                return lhs.time < rhs.time ? -1 : (lhs.time == rhs.time ? 0 : 1);
+            }
+        });
+        return entries;
+    }
+
+    static final class Entry {
+        final long time;
+        final String lang;
+        final String text;
+        final int flags;
+        final String session;
+
+        Entry(long time, String lang, String text, int flags, String session) {
+            this.time = time;
+            this.lang = lang;
+            this.text = text;
+            this.flags = flags;
+            this.session = session;
+        }
+    }
+
+}
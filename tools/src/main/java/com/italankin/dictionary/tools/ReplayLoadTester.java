@@ -0,0 +1,331 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.LookupKey;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.ResultRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import retrofit2.adapter.rxjava.HttpException;
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Replays recorded query log (see {@link QueryLog}) through {@link ApiClient#lookup} with the
+ * same cache-first policy as the app: {@link ResultRegistry}, then {@link LookupStore}, then
+ * network. Reports throughput, latency percentiles, cache hit ratios and cancellations.
+ * <pre>
+ * Usage: ReplayLoadTester --log queries.tsv [--rate 1] [--base-url url] [--key KEY] [--ui en]
+ *                         [--store dir] [--timeout 60]
+ *                         [StubApiServer profile options]
+ * </pre>
+ * Rate scales the original timing: 2 replays twice as fast, 0 issues all queries at once.
+ * Without base url a local {@link StubApiServer} is started with latency and error profile
+ * options (see {@link StubApiServer.Profile}). Without store directory an empty temporary one
+ * is used, so the replay starts with a cold cache.
+ */
+public class ReplayLoadTester {
+
+    private static final int SOURCE_MEMORY = 0;
+    private static final int SOURCE_DISK = 1;
+    private static final int SOURCE_NETWORK = 2;
+
+    private final ApiClient mClient;
+    private final LookupStore mStore;
+    private final ResultRegistry mRegistry = new ResultRegistry();
+    private final String mKey;
+    private final String mUi;
+
+    private final AtomicLong mIssued = new AtomicLong();
+    private final AtomicLong[] mSources = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+    private final AtomicLong mEmpty = new AtomicLong();
+    private final AtomicLong mCancelled = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> mErrors = new ConcurrentHashMap<>();
+    private final Latencies mLatencies = new Latencies();
+    private final Latencies mNetworkLatencies = new Latencies();
+    /**
+     * Maximum delay of issuing a query behind its schedule
+     */
+    private long mMaxLag = 0;
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        List<QueryLog.Entry> log = QueryLog.read(new File(a.require("--log")));
+        double rate = Double.parseDouble(a.get("--rate", "1"));
+        long timeout = Long.parseLong(a.get("--timeout", "60"));
+
+        StubApiServer server = null;
+        String baseUrl = a.get("--base-url", null);
+        if (baseUrl == null) {
+            StubApiServer.Profile profile = StubApiServer.Profile.from(a);
+            server = new StubApiServer(0, null, profile);
+            server.start();
+            baseUrl = "http://localhost:" + server.getPort() + "/";
+            System.out.println("Stub server: " + profile);
+        }
+
+        String storeDir = a.get("--store", null);
+        File dir = storeDir != null ? new File(storeDir) : Files.createTempDirectory("lookups").toFile();
+        try {
+            ApiClient client = new ApiClient(new OkHttpClient(), baseUrl);
+            ReplayLoadTester tester = new ReplayLoadTester(client, new LookupStore(dir),
+                    a.get("--key", "key"), a.get("--ui", "en"));
+            tester.replay(log, rate, timeout);
+            if (server != null) {
+                System.out.println(String.format(Locale.US, "server       %d lookups, %d errors",
+                        server.getLookupCount(), server.getErrorCount()));
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            if (storeDir == null) {
+                delete(dir);
+            }
+        }
+        // OkHttp and Rx threads keep running otherwise
+        System.exit(0);
+    }
+
+    public ReplayLoadTester(ApiClient client, LookupStore store, String key, String ui) {
+        mClient = client;
+        mStore = store;
+        mKey = key;
+        mUi = ui;
+    }
+
+    /**
+     * Replay entries and print report.
+     *
+     * @param log     entries ordered by time
+     * @param rate    timing scale, 0 for no delays
+     * @param timeout time to wait for requests in flight after the last query, in seconds
+     */
+    public void replay(List<QueryLog.Entry> log, double rate, long timeout) throws InterruptedException {
+        if (log.isEmpty()) {
+            System.out.println("Empty log");
+            return;
+        }
+        List<Request> requests = new ArrayList<>(log.size());
+        Map<String, Request> sessions = new HashMap<>();
+        long origin = log.get(0).time;
+        long start = System.nanoTime();
+        for (QueryLog.Entry entry : log) {
+            if (rate > 0) {
+                long due = start + (long) ((entry.time - origin) * 1e6 / rate);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } else {
+                    mMaxLag = Math.max(mMaxLag, -wait);
+                }
+            }
+            if (entry.session != null) {
+                Request previous = sessions.get(entry.session);
+                if (previous != null) {
+                    previous.cancel();
+                }
+            }
+            Request request = issue(entry);
+            requests.add(request);
+            if (entry.session != null) {
+                sessions.put(entry.session, request);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        for (Request request : requests) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0 || !request.finished.await(left, TimeUnit.NANOSECONDS)) {
+                System.out.println("Timed out waiting for requests in flight");
+                break;
+            }
+        }
+        report(log, rate, System.nanoTime() - start);
+    }
+
+    private Request issue(QueryLog.Entry entry) {
+        mIssued.incrementAndGet();
+        final LookupKey key = new LookupKey(entry.lang, entry.text, entry.flags);
+        final Request request = new Request();
+        Observable<Integer> remote = mClient.lookup(mKey, entry.lang, entry.text, mUi, entry.flags)
+                .map(new Func1<List<Definition>, Integer>() {
+                    @Override
+                    public Integer call(List<Definition> definitions) {
+                        if (definitions.isEmpty()) {
+                            mEmpty.incrementAndGet();
+                        } else {
+                            mStore.put(key, definitions);
+                            mRegistry.put(new Result(key, definitions));
+                        }
+                        return SOURCE_NETWORK;
+                    }
+                });
+        request.subscription = getLocal(key)
+                .switchIfEmpty(remote)
+                .subscribe(
+                        new Action1<Integer>() {
+                            @Override
+                            public void call(Integer source) {
+                                if (request.finish()) {
+                                    long latency = System.nanoTime() - request.start;
+                                    mSources[source].incrementAndGet();
+                                    mLatencies.add(latency);
+                                    if (source == SOURCE_NETWORK) {
+                                        mNetworkLatencies.add(latency);
+                                    }
+                                }
+                            }
+                        },
+                        new Action1<Throwable>() {
+                            @Override
+                            public void call(Throwable throwable) {
+                                if (request.finish()) {
+                                    String type = throwable instanceof HttpException ?
+                                            "HTTP " + ((HttpException) throwable).code() :
+                                            throwable.getClass().getSimpleName();
+                                    AtomicLong count = mErrors.get(type);
+                                    if (count == null) {
+                                        AtomicLong created = new AtomicLong();
+                                        count = mErrors.putIfAbsent(type, created);
+                                        if (count == null) {
+                                            count = created;
+                                        }
+                                    }
+                                    count.incrementAndGet();
+                                }
+                            }
+                        }
+                );
+        return request;
+    }
+
+    /**
+     * Same as the app's cache-first lookup: registry, then stored results.
+     */
+    private Observable<Integer> getLocal(final LookupKey key) {
+        if (mRegistry.get(key) != null) {
+            return Observable.just(SOURCE_MEMORY);
+        }
+        return mStore.get(key)
+                .map(new Func1<List<Definition>, Integer>() {
+                    @Override
+                    public Integer call(List<Definition> definitions) {
+                        mRegistry.put(new Result(key, definitions));
+                        return SOURCE_DISK;
+                    }
+                })
+                .onErrorResumeNext(Observable.<Integer>empty())
+                .subscribeOn(Schedulers.io());
+    }
+
+    private void report(List<QueryLog.Entry> log, double rate, long elapsed) {
+        long memory = mSources[SOURCE_MEMORY].get();
+        long disk = mSources[SOURCE_DISK].get();
+        long network = mSources[SOURCE_NETWORK].get();
+        long completed = memory + disk + network;
+        long errors = 0;
+        for (AtomicLong count : mErrors.values()) {
+            errors += count.get();
+        }
+        double seconds = elapsed / 1e9;
+        double span = (log.get(log.size() - 1).time - log.get(0).time) / 1e3;
+        System.out.println(String.format(Locale.US,
+                "queries      %d in %.2f s, log span %.2f s, rate x%s, max lag %.1f ms",
+                mIssued.get(), seconds, span, rate > 0 ? rate : "max", mMaxLag / 1e6));
+        System.out.println(String.format(Locale.US,
+                "throughput   %.1f results/s", completed / seconds));
+        System.out.println(String.format(Locale.US,
+                "completed    %d (memory %d, disk %d, network %d, %d of them empty)",
+                completed, memory, disk, network, mEmpty.get()));
+        System.out.println(String.format(Locale.US,
+                "cache hits   %.1f %% (memory %.1f %%, disk %.1f %%)",
+                ratio(memory + disk, completed), ratio(memory, completed), ratio(disk, completed)));
+        System.out.println(String.format(Locale.US,
+                "cancelled    %d (%.1f %% of queries)", mCancelled.get(), ratio(mCancelled.get(), mIssued.get())));
+        System.out.println("errors       " + errors + (mErrors.isEmpty() ? "" : " " + mErrors));
+        System.out.println("latency      " + mLatencies.summary());
+        System.out.println("network      " + mNetworkLatencies.summary());
+    }
+
+    private static double ratio(long value, long total) {
+        return total > 0 ? value * 100.0 / total : 0;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        if (!file.delete()) {
+            System.err.println("Cannot delete " + file);
+        }
+    }
+
+    /**
+     * Lookup in flight.
+     */
+    private final class Request {
+        final long start = System.nanoTime();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        Subscription subscription;
+
+        /**
+         * @return {@code true}, if request was not finished or cancelled yet
+         */
+        boolean finish() {
+            if (done.compareAndSet(false, true)) {
+                finished.countDown();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Cancel request, superseded by the next lookup of the same session.
+         */
+        void cancel() {
+            if (finish()) {
+                mCancelled.incrementAndGet();
+                subscription.unsubscribe();
+            }
+        }
+    }
+
+}
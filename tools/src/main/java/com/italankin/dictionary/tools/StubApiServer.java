@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in of the dictionary API, serving {@code getLangs} and {@code lookup} endpoints.
+ * <pre>
+ * Usage: StubApiServer [--port 8080] [--data dir] [--latency 0] [--jitter 0]
+ *                      [--slow-rate 0] [--slow-latency 0] [--error-rate 0] [--error-code 503]
+ * </pre>
+ * If data directory is set, responses are read from {@code dir/langs.json} and
+ * {@code dir/<lang>/<text>.json}, otherwise (or if there is no such file) a synthetic response
+ * is generated for every word. Response delays and failures are controlled by {@link Profile}.
+ */
+public class StubApiServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final HttpServer mServer;
+    private final File mData;
+    private final Profile mProfile;
+    private final AtomicLong mLookups = new AtomicLong();
+    private final AtomicLong mErrors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        int port = Integer.parseInt(a.get("--port", "8080"));
+        String data = a.get("--data", null);
+        StubApiServer server = new StubApiServer(port, data != null ? new File(data) : null,
+                Profile.from(a));
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/");
+    }
+
+    /**
+     * @param port    port to listen to, 0 for any free port
+     * @param data    directory with responses, or {@code null}
+     * @param latency artificial delay of every response in milliseconds
+     */
+    public StubApiServer(int port, File data, long latency) throws IOException {
+        this(port, data, new Profile(latency, 0, 0, 0, 0, 503));
+    }
+
+    /**
+     * @param port    port to listen to, 0 for any free port
+     * @param data    directory with responses, or {@code null}
+     * @param profile latency and error profile
+     */
+    public StubApiServer(int port, File data, Profile profile) throws IOException {
+        mData = data;
+        mProfile = profile;
+        mServer = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleRequest(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    public void start() {
+        mServer.start();
+    }
+
+    public void stop() {
+        mServer.stop(0);
+    }
+
+    public int getPort() {
+        return mServer.getAddress().getPort();
+    }
+
+    /**
+     * @return number of received {@code lookup} requests
+     */
+    public long getLookupCount() {
+        return mLookups.get();
+    }
+
+    /**
+     * @return number of error responses, sent according to {@link Profile#errorRate}
+     */
+    public long getErrorCount() {
+        return mErrors.get();
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        if (path.endsWith("/lookup")) {
+            mLookups.incrementAndGet();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = mProfile.latency;
+        if (mProfile.jitter > 0) {
+            delay += random.nextLong(mProfile.jitter + 1);
+        }
+        if (mProfile.slowRate > 0 && random.nextDouble() < mProfile.slowRate) {
+            delay = mProfile.slowLatency;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mProfile.errorRate > 0 && random.nextDouble() < mProfile.errorRate) {
+            mErrors.incrementAndGet();
+            send(exchange, mProfile.errorCode,
+                    "{\"code\":" + mProfile.errorCode + ",\"message\":\"Simulated error\"}");
+        } else if (path.endsWith("/getLangs")) {
+            String body = mData != null ? read(new File(mData, "langs.json")) : null;
+            send(exchange, 200, body != null ? body : "[\"en-ru\",\"ru-en\",\"en-de\",\"de-en\"]");
+        } else if (path.endsWith("/lookup")) {
+            String lang = query.get("lang");
+            String text = query.get("text");
+            if (lang == null || text == null) {
+                send(exchange, 400, "{\"code\":400,\"message\":\"Bad request\"}");
+                return;
+            }
+            String body = mData != null ? read(new File(new File(mData, lang), text + ".json")) : null;
+            send(exchange, 200, body != null ? body : synthetic(lang, text));
+        } else {
+            send(exchange, 404, "{\"code\":404,\"message\":\"Not found\"}");
+        }
+    }
+
+    /**
+     * Generate response with a single translation for the {@code text}.
+     */
+    static String synthetic(String lang, String text) {
+        String target = lang.substring(lang.indexOf('-') + 1);
+        JsonObject translation = new JsonObject();
+        translation.addProperty("text", text + " (" + target + ")");
+        translation.addProperty("pos", "noun");
+        JsonArray tr = new JsonArray();
+        tr.add(translation);
+        JsonObject definition = new JsonObject();
+        definition.addProperty("text", text);
+        definition.addProperty("pos", "noun");
+        definition.add("tr", tr);
+        JsonArray def = new JsonArray();
+        def.add(definition);
+        JsonObject result = new JsonObject();
+        result.add("head", new JsonObject());
+        result.add("def", def);
+        return result.toString();
+    }
+
+    private static String read(File file) throws IOException {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        return new String(Files.readAllBytes(file.toPath()), UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<>();
+        if (query == null) {
+            return result;
+        }
+        for (String pair : query.split("&")) {
+            int i = pair.indexOf('=');
+            if (i > 0) {
+                result.put(URLDecoder.decode(pair.substring(0, i), "UTF-8"),
+                        URLDecoder.decode(pair.substring(i + 1), "UTF-8"));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Latency and error behaviour of the server.
+     */
+    public static final class Profile {
+
+        /**
+         * Base delay of every response in milliseconds
+         */
+        public final long latency;
+
+        /**
+         * Maximum random delay in milliseconds, added to {@link #latency}
+         */
+        public final long jitter;
+
+        /**
+         * Probability of a slow response, which takes {@link #slowLatency} instead
+         */
+        public final double slowRate;
+
+        /**
+         * Delay of slow responses in milliseconds
+         */
+        public final long slowLatency;
+
+        /**
+         * Probability of an error response
+         */
+        public final double errorRate;
+
+        /**
+         * HTTP status code of error responses
+         */
+        public final int errorCode;
+
+        public Profile(long latency, long jitter, double slowRate, long slowLatency,
+                double errorRate, int errorCode) {
+            this.latency = latency;
+            this.jitter = jitter;
+            this.slowRate = slowRate;
+            this.slowLatency = slowLatency;
+            this.errorRate = errorRate;
+            this.errorCode = errorCode;
+        }
+
+        static Profile from(Args a) {
+            return new Profile(
+                    Long.parseLong(a.get("--latency", "0")),
+                    Long.parseLong(a.get("--jitter", "0")),
+                    Double.parseDouble(a.get("--slow-rate", "0")),
+                    Long.parseLong(a.get("--slow-latency", "0")),
+                    Double.parseDouble(a.get("--error-rate", "0")),
+                    Integer.parseInt(a.get("--error-code", "503")));
+        }
+
+        @Override
+        public String toString() {
+            return "latency=" + latency + "+" + jitter + "ms, slow=" + slowRate + "@" + slowLatency +
+                    "ms, errors=" + errorRate + "@" + errorCode;
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2016 Igor Talankin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.italankin.dictionary.tools;
+
+import com.google.gson.Gson;
+import com.italankin.dictionary.api.ApiClient;
+import com.italankin.dictionary.dto.Definition;
+import com.italankin.dictionary.dto.DicResult;
+import com.italankin.dictionary.dto.Language;
+import com.italankin.dictionary.dto.Result;
+import com.italankin.dictionary.ui.main.MainPresenter;
+import com.italankin.dictionary.ui.main.MainView;
+import com.italankin.dictionary.utils.LookupStore;
+import com.italankin.dictionary.utils.Preferences;
+import com.italankin.dictionary.utils.Preloader;
+import com.italankin.dictionary.utils.ResultRegistry;
+import com.italankin.dictionary.utils.RxSchedulers;
+import com.italankin.dictionary.utils.Settings;
+import com.italankin.dictionary.utils.SpellingCorrector;
+import com.italankin.dictionary.utils.TranslationIndex;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import dagger.Lazy;
+import okhttp3.OkHttpClient;
+import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Func0;
+import rx.functions.Func1;
+import rx.schedulers.TestScheduler;
+
+/**
+ * Replays keystroke timing traces through the real {@link MainPresenter} input pipeline in virtual
+ * time and reports requests issued, requests cancelled mid-flight, time from the last keystroke
+ * to result and bytes fetched per session.
+ * <pre>
+ * Usage: TypingSimulator (--trace trace.tsv | --words words.txt [--interval 180] [--jitter 120])
+ *                        [--latency 150] [--latency-jitter 100] [--gap 5000] [--seed 1]
+ * </pre>
+ * Trace contains tab separated lines {@code time text}, where time is the keystroke time in
+ * milliseconds since the session start and text is the whole input after the keystroke. Sessions
+ * are separated by empty lines, lines starting with '#' are skipped. Instead of trace, words
+ * file may be given to type every word with random intervals between keystrokes.
+ * <p>
+ * The network is simulated: every request takes random latency in virtual time and returns
+ * a synthetic response (see {@link StubApiServer}). Bytes are counted for completed responses
+ * only.
+ */
+public class TypingSimulator {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SOURCE = "en";
+    private static final String DEST = "ru";
+
+    private final TestScheduler mScheduler = new TestScheduler();
+    private final SimulatedApiClient mClient;
+    private final MainPresenter mPresenter;
+
+    /**
+     * Virtual time of the last keystroke in the current session
+     */
+    private long mLastKeystroke;
+    /**
+     * Time from the last keystroke to the last delivered result of the current session, or -1
+     */
+    private long mTimeToResult;
+
+    public static void main(String[] args) throws Exception {
+        Args a = new Args(args);
+        long seed = Long.parseLong(a.get("--seed", "1"));
+        List<List<Keystroke>> sessions;
+        String trace = a.get("--trace", null);
+        if (trace != null) {
+            sessions = readTrace(new File(trace));
+        } else {
+            sessions = generate(readLines(new File(a.require("--words"))),
+                    Long.parseLong(a.get("--interval", "180")),
+                    Long.parseLong(a.get("--jitter", "120")), new Random(seed));
+        }
+        File dir = Files.createTempDirectory("lookups").toFile();
+        try {
+            TypingSimulator simulator = new TypingSimulator(new LookupStore(dir),
+                    Long.parseLong(a.get("--latency", "150")),
+                    Long.parseLong(a.get("--latency-jitter", "100")), new Random(seed));
+            simulator.run(sessions, Long.parseLong(a.get("--gap", "5000")));
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.delete()) {
+                        System.err.println("Cannot delete " + file);
+                    }
+                }
+            }
+            if (!dir.delete()) {
+                System.err.println("Cannot delete " + dir);
+            }
+        }
+    }
+
+    public TypingSimulator(LookupStore store, long latency, long latencyJitter, Random random) {
+        mClient = new SimulatedApiClient(mScheduler, latency, latencyJitter, random);
+        RxSchedulers schedulers = new RxSchedulers(mScheduler, mScheduler, mScheduler);
+        mPresenter = new MainPresenter(
+                new Lazy<ApiClient>() {
+                    @Override
+                    public ApiClient get() {
+                        return mClient;
+                    }
+                },
+                "key", new SimulatedPreferences(), store, new ResultRegistry(),
+                new Preloader() {
+                    @Override
+                    public Observable<List<Language>> takeLanguages() {
+                        return null;
+                    }
+                },
+                schedulers);
+    }
+
+    /**
+     * Run sessions and print report.
+     *
+     * @param sessions keystrokes of every session
+     * @param gap      pause between sessions in milliseconds
+     */
+    public void run(List<List<Keystroke>> sessions, long gap) {
+        mPresenter.attach(new View());
+        mPresenter.loadLanguages();
+        mScheduler.triggerActions();
+
+        Latencies timeToResult = new Latencies();
+        long totalKeys = 0, totalRequests = 0, totalCancelled = 0, totalBytes = 0;
+        int noResult = 0;
+        System.out.println("session  keys  requests  cancelled  result ms  bytes  text");
+        for (int i = 0; i < sessions.size(); i++) {
+            List<Keystroke> session = sessions.get(i);
+            if (session.isEmpty()) {
+                continue;
+            }
+            long requests = mClient.requests, cancelled = mClient.cancelled, bytes = mClient.bytes;
+            long start = mScheduler.now();
+            mTimeToResult = -1;
+            for (final Keystroke keystroke : session) {
+                mScheduler.createWorker().schedule(new Action0() {
+                    @Override
+                    public void call() {
+                        mLastKeystroke = mScheduler.now();
+                        mPresenter.lookup(keystroke.text);
+                    }
+                }, start + keystroke.time - mScheduler.now(), TimeUnit.MILLISECONDS);
+            }
+            long end = start + session.get(session.size() - 1).time + gap;
+            mScheduler.advanceTimeTo(end, TimeUnit.MILLISECONDS);
+
+            requests = mClient.requests - requests;
+            cancelled = mClient.cancelled - cancelled;
+            bytes = mClient.bytes - bytes;
+            totalKeys += session.size();
+            totalRequests += requests;
+            totalCancelled += cancelled;
+            totalBytes += bytes;
+            if (mTimeToResult >= 0) {
+                timeToResult.add(TimeUnit.MILLISECONDS.toNanos(mTimeToResult));
+            } else {
+                noResult++;
+            }
+            System.out.println(String.format(Locale.US, "%7d  %4d  %8d  %9d  %9s  %5d  %s",
+                    i + 1, session.size(), requests, cancelled,
+                    mTimeToResult >= 0 ? String.valueOf(mTimeToResult) : "-", bytes,
+                    session.get(session.size() - 1).text));
+        }
+        mPresenter.clearSubscriptions();
+
+        int count = sessions.size();
+        System.out.println();
+        System.out.println(String.format(Locale.US,
+                "sessions     %d, %d keystrokes, %d without result", count, totalKeys, noResult));
+        System.out.println(String.format(Locale.US,
+                "requests     %d (%.2f per session), %d cancelled mid-flight (%.1f %%)",
+                totalRequests, totalRequests / (double) count, totalCancelled,
+                totalRequests > 0 ? totalCancelled * 100.0 / totalRequests : 0));
+        System.out.println(String.format(Locale.US,
+                "bytes        %d (%.0f per session)", totalBytes, totalBytes / (double) count));
+        System.out.println("result after " + timeToResult.summary());
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Traces
+    ///////////////////////////////////////////////////////////////////////////
+
+    static List<List<Keystroke>> readTrace(File file) throws IOException {
+        List<List<Keystroke>> sessions = new ArrayList<>();
+        List<Keystroke> session = new ArrayList<>();
+        int number = 0;
+        for (String line : readAllLines(file)) {
+            number++;
+            if (line.startsWith("#")) {
+                continue;
+            }
+            if (line.trim().isEmpty()) {
+                if (!session.isEmpty()) {
+                    sessions.add(session);
+                    session = new ArrayList<>();
+                }
+                continue;
+            }
+            int i = line.indexOf('\t');
+            if (i < 0) {
+                throw new IOException(file + ":" + number + ": expected time and text");
+            }
+            try {
+                session.add(new Keystroke(Long.parseLong(line.substring(0, i).trim()), line.substring(i + 1)));
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + number + ": " + e.getMessage());
+            }
+        }
+        if (!session.isEmpty()) {
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * Generate sessions of typing every word char by char.
+     *
+     * @param words    words to type
+     * @param interval mean interval between keystrokes in milliseconds
+     * @param jitter   maximum deviation from the mean interval
+     * @param random   random generator
+     * @return sessions
+     */
+    static List<List<Keystroke>> generate(List<String> words, long interval, long jitter, Random random) {
+        List<List<Keystroke>> sessions = new ArrayList<>(words.size());
+        for (String word : words) {
+            List<Keystroke> session = new ArrayList<>(word.length());
+            long time = 0;
+            for (int i = 1; i <= word.length(); i++) {
+                session.add(new Keystroke(time, word.substring(0, i)));
+                long deviation = jitter > 0 ? (long) ((random.nextDouble() * 2 - 1) * jitter) : 0;
+                time += Math.max(interval + deviation, 1);
+            }
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String line : readAllLines(file)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> readAllLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    static final class Keystroke {
+        /**
+         * Time since the session start in milliseconds
+         */
+        final long time;
+        /**
+         * Whole input after the keystroke
+         */
+        final String text;
+
+        Keystroke(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Simulated environment
+    ///////////////////////////////////////////////////////////////////////////
+
+    private class View implements MainView {
+        @Override
+        public void onLanguagesResult(List<Language> languages, int destIndex, int sourceIndex) {
+        }
+
+        @Override
+        public void onLanguagesError() {
+            throw new IllegalStateException("Languages are not loaded");
+        }
+
+        @Override
+        public void onLookupResult(Result result) {
+            mTimeToResult = mScheduler.now() - mLastKeystroke;
+        }
+
+        @Override
+        public void onSectionResult(int position, Language target, Result result, boolean reset) {
+            if (reset) {
+                mTimeToResult = mScheduler.now() - mLastKeystroke;
+            }
+        }
+
+        @Override
+        public void onEmptyResult() {
+        }
+
+        @Override
+        public void onStoredSearchResult(List<TranslationIndex.Hit> hits) {
+        }
+
+        @Override
+        public void onSuggestions(List<SpellingCorrector.Suggestion> suggestions) {
+        }
+
+        @Override
+        public void onAutoCorrected(SpellingCorrector.Suggestion suggestion) {
+        }
+
+        @Override
+        public void onError(int error) {
+        }
+    }
+
+    /**
+     * Client, which responds in virtual time with synthetic results and counts requests.
+     * Only accessed from the simulation thread.
+     */
+    private static class SimulatedApiClient extends ApiClient {
+        private final Gson mGson = new Gson();
+        private final TestScheduler mScheduler;
+        private final long mLatency;
+        private final long mJitter;
+        private final Random mRandom;
+
+        long requests;
+        long cancelled;
+        long bytes;
+
+        SimulatedApiClient(TestScheduler scheduler, long latency, long jitter, Random random) {
+            super(new OkHttpClient(), "http://localhost/");
+            mScheduler = scheduler;
+            mLatency = latency;
+            mJitter = jitter;
+            mRandom = random;
+        }
+
+        @Override
+        public Observable<List<Language>> getLangs(String key) {
+            return Observable.just(Arrays.asList(new Language(SOURCE, "English"), new Language(DEST, "Russian")));
+        }
+
+        @Override
+        public Observable<List<Definition>> lookup(String key, final String lang, final String text,
+                String ui, int flags) {
+            return Observable.defer(new Func0<Observable<List<Definition>>>() {
+                @Override
+                public Observable<List<Definition>> call() {
+                    requests++;
+                    final boolean[] completed = {false};
+                    long latency = mLatency + (mJitter > 0 ? (long) (mRandom.nextDouble() * mJitter) : 0);
+                    return Observable.timer(latency, TimeUnit.MILLISECONDS, mScheduler)
+                            .map(new Func1<Long, List<Definition>>() {
+                                @Override
+                                public List<Definition> call(Long tick) {
+                                    completed[0] = true;
+                                    String json = StubApiServer.synthetic(lang, text);
+                                    bytes += json.getBytes(UTF_8).length;
+                                    return mGson.fromJson(json, DicResult.class).def;
+                                }
+                            })
+                            .doOnUnsubscribe(new Action0() {
+                                @Override
+                                public void call() {
+                                    if (!completed[0]) {
+                                        cancelled++;
+                                    }
+                                }
+                            });
+                }
+            });
+        }
+    }
+
+    private static class SimulatedPreferences implements Preferences {
+        private final Settings mSettings = new Settings(ApiClient.FILTER_NONE, false, false, false,
+                false, false, false, false, false);
+        private String mSource = SOURCE;
+        private String mDest = DEST;
+
+        @Override
+        public Settings getSettings() {
+            return mSettings;
+        }
+
+        @Override
+        public Observable<Settings> settings() {
+            return Observable.just(mSettings);
+        }
+
+        @Override
+        public String getSourceLang() {
+            return mSource;
+        }
+
+        @Override
+        public void setSourceLang(Language lang) {
+            mSource = lang.getCode();
+        }
+
+        @Override
+        public String getDestLang() {
+            return mDest;
+        }
+
+        @Override
+        public void setDestLang(Language lang) {
+            mDest = lang.getCode();
+        }
+
+        @Override
+        public boolean shouldUpdateLangs() {
+            return true;
+        }
+
+        @Override
+        public void setLangsTimestamp(Date date) {
+        }
+
+        @Override
+        public Observable<List<Language>> getLanguagesList() {
+            return Observable.empty();
+        }
+
+        @Override
+        public void saveLanguagesList(List<Language> list) {
+        }
+
+        @Override
+        public Set<String> getFavoriteLangs() {
+            return null;
+        }
+
+        @Override
+        public void setFavoriteLangs(Set<String> codes) {
+        }
+    }
+
+}